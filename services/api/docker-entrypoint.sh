@@ -0,0 +1,17 @@
+#!/bin/sh
+# Starts the API with Spring AOT only when the active profiles are the ones the
+# AOT bean graph was generated for (AOT_PROFILES, set at image build time).
+# AOT resolves profile-specific conditions at build time, so running its output
+# under any other profiles would quietly use the wrong beans.
+set -e
+
+AOT=false
+if [ "$SPRING_PROFILES_ACTIVE" = "$AOT_PROFILES" ]; then
+    AOT=true
+else
+    echo "Active profiles '${SPRING_PROFILES_ACTIVE}' differ from the AOT build profiles '${AOT_PROFILES}'; starting without AOT" >&2
+fi
+
+exec java -XX:+UseContainerSupport -XX:MaxRAMPercentage=75.0 \
+    -XX:SharedArchiveFile=app.jsa -Xshare:auto -Dspring.aot.enabled=$AOT \
+    -cp "app.jar:lib/*" com.devhub.DevHubApplication "$@"
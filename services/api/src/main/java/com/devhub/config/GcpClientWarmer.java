@@ -0,0 +1,72 @@
+package com.devhub.config;
+
+import com.devhub.service.StorageService;
+import com.google.cloud.firestore.Firestore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms up lazily initialized beans and GCP clients in the background.
+ *
+ * With the fast-start profile the context starts with lazy initialization, so
+ * the app reports healthy before the Firestore and GCS clients exist. Once the
+ * application is ready this creates the remaining singletons and issues one
+ * cheap call per client to load credentials and open connections, so the
+ * first real request does not pay for it.
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class GcpClientWarmer {
+
+    @Value("${devhub.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+
+        Thread thread = new Thread(this::warmUp, "gcp-client-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+
+        // Create the singletons that lazy initialization skipped (services, controllers, clients)
+        beanFactory.preInstantiateSingletons();
+
+        // Absent when the embedded storage backend is selected
+        Firestore firestore = beanFactory.getBeanProvider(Firestore.class).getIfAvailable();
+        if (firestore != null) {
+            try {
+                firestore.collection("snippets").limit(1).get().get(30, TimeUnit.SECONDS);
+                log.info("Firestore client warmed up");
+            } catch (Exception e) {
+                log.warn("Firestore warm-up failed; the first request will initialize the client", e);
+            }
+        }
+
+        try {
+            beanFactory.getBean(StorageService.class).warmUp();
+        } catch (Exception e) {
+            log.warn("GCS warm-up failed; the first upload will initialize the client", e);
+        }
+
+        log.info("Background warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,163 @@
+package com.devhub.config;
+
+import com.devhub.model.CodeSnippet;
+import com.devhub.model.Lease;
+import com.devhub.model.PortfolioLink;
+import com.devhub.model.SnippetRevision;
+import com.devhub.repository.DocumentRepository;
+import com.devhub.repository.FirestoreRepository;
+import com.devhub.repository.HedgingPolicy;
+import com.devhub.repository.ObservedRepository;
+import com.devhub.repository.embedded.EmbeddedStore;
+import com.google.cloud.firestore.Firestore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Selects the storage backend for snippets, their revision history, portfolio
+ * links and the leases that keep background jobs to one pod.
+ *
+ * devhub.storage.backend=firestore (default) uses Cloud Firestore;
+ * devhub.storage.backend=embedded keeps both collections in local append-only
+ * logs under devhub.storage.embedded.data-dir, for local and single-node
+ * deployments without GCP.
+ */
+@Configuration
+public class RepositoryConfig {
+
+    static final String SNIPPETS = "snippets";
+    static final String PORTFOLIO = "portfolio";
+    static final String SNIPPET_REVISIONS = "snippetRevisions";
+    static final String LEASES = "leases";
+
+    @Configuration
+    @ConditionalOnProperty(name = "devhub.storage.backend", havingValue = "firestore", matchIfMissing = true)
+    static class FirestoreBackend {
+
+        @Value("${devhub.streaming.prefetch:64}")
+        private int streamPrefetch;
+
+        @Value("${devhub.hedging.enabled:false}")
+        private boolean hedgingEnabled;
+
+        @Value("${devhub.hedging.percentile:0.95}")
+        private double hedgingPercentile;
+
+        @Value("${devhub.hedging.min-delay-ms:5}")
+        private long hedgingMinDelayMs;
+
+        @Value("${devhub.hedging.max-delay-ms:200}")
+        private long hedgingMaxDelayMs;
+
+        @Value("${devhub.hedging.budget-percent:5}")
+        private double hedgingBudgetPercent;
+
+        @Value("${devhub.hedging.max-burst:10}")
+        private int hedgingMaxBurst;
+
+        @Value("${devhub.hedging.window:1000}")
+        private int hedgingWindow;
+
+        @Bean
+        DocumentRepository<CodeSnippet> snippetRepository(Firestore firestore, ObservationRegistry registry,
+                                                          MeterRegistry meterRegistry) {
+            return new ObservedRepository<>(
+                    new FirestoreRepository<>(firestore, SNIPPETS, CodeSnippet.class, streamPrefetch, registry,
+                            hedging(SNIPPETS, meterRegistry)),
+                    "firestore", SNIPPETS, registry);
+        }
+
+        @Bean
+        DocumentRepository<PortfolioLink> portfolioRepository(Firestore firestore, ObservationRegistry registry,
+                                                              MeterRegistry meterRegistry) {
+            return new ObservedRepository<>(
+                    new FirestoreRepository<>(firestore, PORTFOLIO, PortfolioLink.class, streamPrefetch, registry,
+                            hedging(PORTFOLIO, meterRegistry)),
+                    "firestore", PORTFOLIO, registry);
+        }
+
+        @Bean
+        DocumentRepository<SnippetRevision> snippetRevisionRepository(Firestore firestore,
+                                                                      ObservationRegistry registry) {
+            return new ObservedRepository<>(
+                    new FirestoreRepository<>(firestore, SNIPPET_REVISIONS, SnippetRevision.class, streamPrefetch,
+                            registry, null),
+                    "firestore", SNIPPET_REVISIONS, registry);
+        }
+
+        @Bean
+        DocumentRepository<Lease> leaseRepository(Firestore firestore, ObservationRegistry registry) {
+            return new ObservedRepository<>(
+                    new FirestoreRepository<>(firestore, LEASES, Lease.class, streamPrefetch, registry, null),
+                    "firestore", LEASES, registry);
+        }
+
+        /**
+         * Hedging for single-document gets, with its own latency window per
+         * collection; null unless devhub.hedging.enabled.
+         */
+        private HedgingPolicy hedging(String collection, MeterRegistry meterRegistry) {
+            if (!hedgingEnabled) {
+                return null;
+            }
+            return new HedgingPolicy(collection, hedgingPercentile, hedgingMinDelayMs, hedgingMaxDelayMs,
+                    hedgingBudgetPercent, hedgingMaxBurst, hedgingWindow, meterRegistry);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "devhub.storage.backend", havingValue = "embedded")
+    static class EmbeddedBackend {
+
+        @Bean
+        EmbeddedStore embeddedStore(
+                @Value("${devhub.storage.embedded.data-dir:./data}") String dataDir,
+                @Value("${devhub.storage.embedded.initial-log-bytes:16777216}") long initialLogBytes,
+                @Value("${devhub.storage.embedded.sync-writes:false}") boolean syncWrites,
+                @Value("${devhub.storage.embedded.compaction-interval-seconds:60}") long compactionIntervalSeconds,
+                @Value("${devhub.storage.embedded.compaction-min-garbage-bytes:8388608}") long compactionMinGarbageBytes)
+                throws IOException {
+            return new EmbeddedStore(Path.of(dataDir), initialLogBytes, syncWrites,
+                    compactionIntervalSeconds, compactionMinGarbageBytes);
+        }
+
+        @Bean
+        DocumentRepository<CodeSnippet> snippetRepository(EmbeddedStore store, ObservationRegistry registry)
+                throws IOException {
+            return new ObservedRepository<>(
+                    store.repository(SNIPPETS, CodeSnippet.class, Set.of("createdAt", "language")),
+                    "embedded", SNIPPETS, registry);
+        }
+
+        @Bean
+        DocumentRepository<PortfolioLink> portfolioRepository(EmbeddedStore store, ObservationRegistry registry)
+                throws IOException {
+            return new ObservedRepository<>(
+                    store.repository(PORTFOLIO, PortfolioLink.class, Set.of("order", "rank", "category")),
+                    "embedded", PORTFOLIO, registry);
+        }
+
+        @Bean
+        DocumentRepository<SnippetRevision> snippetRevisionRepository(EmbeddedStore store,
+                                                                      ObservationRegistry registry)
+                throws IOException {
+            return new ObservedRepository<>(
+                    store.repository(SNIPPET_REVISIONS, SnippetRevision.class, Set.of("snippetId", "revision")),
+                    "embedded", SNIPPET_REVISIONS, registry);
+        }
+
+        @Bean
+        DocumentRepository<Lease> leaseRepository(EmbeddedStore store, ObservationRegistry registry)
+                throws IOException {
+            return new ObservedRepository<>(store.repository(LEASES, Lease.class, Set.of()), "embedded", LEASES, registry);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.devhub.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Dedicated executor for streamed responses (?stream=true), instead of Boot's
+ * shared applicationTaskExecutor and its unbounded queue. Each body holds its
+ * thread, and its query's read-ahead, until the client has read everything.
+ *
+ * The queue is bounded too; StreamingJsonWriter answers 503 before it would
+ * overflow. Not a bean, so Boot's own task executor is left in place.
+ */
+@Configuration
+public class StreamingConfig implements WebMvcConfigurer {
+
+    @Value("${devhub.streaming.threads:16}")
+    private int threads;
+
+    @Value("${devhub.streaming.queue-capacity:16}")
+    private int queueCapacity;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("stream-");
+        executor.setDaemon(true);
+        executor.initialize();
+        configurer.setTaskExecutor(executor);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.devhub.config;
+
+import com.devhub.tracing.JsonLinesSpanExporter;
+import com.devhub.tracing.ServerTimingFilter;
+import com.devhub.tracing.ServerTimingObservationHandler;
+import com.devhub.tracing.TimedJacksonHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Per-request latency breakdown and span export.
+ *
+ * Repository, GCS and JSON serialization steps are recorded as Micrometer
+ * observations. Each becomes a tracing span (sampled by
+ * management.tracing.sampling.probability, exported over OTLP when
+ * management.otlp.tracing.endpoint is set and/or to devhub.tracing.file) and,
+ * unless disabled, an entry in the response's Server-Timing header.
+ *
+ * The devhub.tracing.* settings are read when the beans are created, not
+ * through conditions, so the AOT image (whose conditions are fixed at build
+ * time) honours them too. Boot's own management.otlp.tracing.endpoint is still
+ * a build-time condition there.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Replaces Boot's default Jackson converter so serialization is timed.
+     */
+    @Bean
+    MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                          ObservationRegistry registry,
+                                                                          ObjectProvider<Tracer> tracer) {
+        return new TimedJacksonHttpMessageConverter(objectMapper, registry, tracer.getIfAvailable());
+    }
+
+    @Bean
+    ServerTimingFilter serverTimingFilter(
+            @Value("${devhub.tracing.server-timing.enabled:true}") boolean enabled) {
+        return new ServerTimingFilter(enabled);
+    }
+
+    /**
+     * Only records while a request has Server-Timing enabled, so it needs no switch of its own.
+     */
+    @Bean
+    ServerTimingObservationHandler serverTimingObservationHandler() {
+        return new ServerTimingObservationHandler();
+    }
+
+    @Bean
+    JsonLinesSpanExporter jsonLinesSpanExporter(@Value("${devhub.tracing.file:}") String file) throws IOException {
+        return new JsonLinesSpanExporter(file.isBlank() ? null : Path.of(file));
+    }
+}
@@ -0,0 +1,48 @@
+package com.devhub.controller;
+
+import com.google.cloud.Timestamp;
+
+/**
+ * Helpers for mapping document update times to HTTP ETag / If-Match headers.
+ * ETags have the form "seconds.nanos" of the document's updateTime.
+ */
+final class ConditionalWrites {
+
+    private ConditionalWrites() {
+    }
+
+    /**
+     * Strong ETag for a document update time.
+     */
+    static String etag(Timestamp updateTime) {
+        return "\"" + updateTime.getSeconds() + "." + updateTime.getNanos() + "\"";
+    }
+
+    /**
+     * Parse an If-Match header into the expected update time.
+     *
+     * @return null when the header is absent or "*" (no precondition)
+     * @throws IllegalArgumentException if the header is not an ETag issued by this API
+     */
+    static Timestamp parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            throw new IllegalArgumentException("Weak ETags cannot be used as write preconditions");
+        }
+        value = value.replace("\"", "");
+
+        String[] parts = value.split("\\.");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Malformed If-Match header: " + ifMatch);
+        }
+        try {
+            return Timestamp.ofTimeSecondsAndNanos(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed If-Match header: " + ifMatch, e);
+        }
+    }
+}
@@ -1,15 +1,27 @@
 package com.devhub.controller;
 
+import com.devhub.model.BatchGetResult;
+import com.devhub.model.MoveRequest;
 import com.devhub.model.PortfolioLink;
+import com.devhub.model.Versioned;
+import com.devhub.repository.DocumentNotFoundException;
+import com.devhub.repository.PreconditionFailedException;
+import com.devhub.service.ChangeFeedService;
+import com.devhub.service.MoveConflictException;
 import com.devhub.service.PortfolioService;
+import com.google.cloud.Timestamp;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -19,12 +31,18 @@ import java.util.concurrent.ExecutionException;
 @Slf4j
 @RestController
 @RequestMapping("/api/portfolio")
-@CrossOrigin(origins = "*")  // Configure appropriately for production
+@CrossOrigin(origins = "*", exposedHeaders = {"ETag", "Server-Timing"})  // Configure appropriately for production
 public class PortfolioController {
 
     @Autowired
     private PortfolioService portfolioService;
 
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private StreamingJsonWriter streamingJsonWriter;
+
     /**
      * GET /api/portfolio
      * Get all portfolio links ordered by display order.
@@ -40,6 +58,42 @@ public class PortfolioController {
         }
     }
 
+    /**
+     * GET /api/portfolio?stream=true
+     * Same result as GET /api/portfolio, written to the response as the query
+     * returns it, so memory use and time to first byte stay flat as the
+     * collection grows. With ids, the multi-get below applies instead.
+     */
+    @GetMapping(params = {"stream=true", "!ids"})
+    public ResponseEntity<StreamingResponseBody> streamAllLinks() {
+        try {
+            return streamingJsonWriter.write(portfolioService.streamAllLinks(), "portfolio links");
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error streaming portfolio links", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * GET /api/portfolio?ids=a,b,c
+     * Get several portfolio links by ID in one batched read. Results follow the request
+     * order; missing IDs are marked with found=false. The result is bounded by
+     * devhub.batch-get.max-ids, so stream=true is ignored here.
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<BatchGetResult<PortfolioLink>>> getLinksByIds(@RequestParam("ids") List<String> ids) {
+        List<String> requested = ids.stream().map(String::trim).filter(id -> !id.isEmpty()).toList();
+        try {
+            return ResponseEntity.ok(portfolioService.getLinksByIds(requested));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected multi-get of {} portfolio links: {}", requested.size(), e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error fetching portfolio links by ID", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * GET /api/portfolio/category/{category}
      * Get portfolio links by category.
@@ -55,6 +109,38 @@ public class PortfolioController {
         }
     }
 
+    /**
+     * GET /api/portfolio/category/{category}?stream=true
+     * Streaming variant of GET /api/portfolio/category/{category}.
+     */
+    @GetMapping(path = "/category/{category}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamLinksByCategory(@PathVariable String category) {
+        try {
+            return streamingJsonWriter.write(portfolioService.streamLinksByCategory(category),
+                    "portfolio links for category " + category);
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error streaming portfolio links by category: {}", category, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * GET /api/portfolio/changes
+     * Stream portfolio changes (added, modified, removed) as Server-Sent Events.
+     * Reconnecting clients send Last-Event-ID to resume; a "reset" event means
+     * changes were missed and the client should refetch.
+     */
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            return ResponseEntity.ok(changeFeedService.subscribeToPortfolio(lastEventId));
+        } catch (IllegalStateException e) {
+            log.warn("Rejecting portfolio change feed subscriber: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     /**
      * GET /api/portfolio/{id}
      * Get a specific portfolio link by ID.
@@ -62,11 +148,13 @@ public class PortfolioController {
     @GetMapping("/{id}")
     public ResponseEntity<PortfolioLink> getLinkById(@PathVariable String id) {
         try {
-            PortfolioLink link = portfolioService.getLinkById(id);
+            Versioned<PortfolioLink> link = portfolioService.getVersionedLinkById(id);
             if (link == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(link);
+            return ResponseEntity.ok()
+                    .eTag(ConditionalWrites.etag(link.getUpdateTime()))
+                    .body(link.getValue());
         } catch (ExecutionException | InterruptedException e) {
             log.error("Error fetching portfolio link: {}", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -82,6 +170,9 @@ public class PortfolioController {
         try {
             String id = portfolioService.createLink(link);
             return ResponseEntity.status(HttpStatus.CREATED).body(id);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected portfolio link: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (ExecutionException | InterruptedException e) {
             log.error("Error creating portfolio link", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -97,12 +188,74 @@ public class PortfolioController {
         try {
             portfolioService.updateLink(id, link);
             return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected update for portfolio link {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (ExecutionException | InterruptedException e) {
             log.error("Error updating portfolio link: {}", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * PATCH /api/portfolio/{id}
+     * Update only the fields present in the request body. With If-Match set to
+     * the ETag from a previous GET or PATCH, the update is rejected with 412 if
+     * the portfolio link has changed since.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchLink(
+            @PathVariable String id,
+            @RequestBody Map<String, Object> fields,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        try {
+            Timestamp updateTime = portfolioService.patchLink(id, fields, ConditionalWrites.parseIfMatch(ifMatch));
+            return ResponseEntity.ok().eTag(ConditionalWrites.etag(updateTime)).build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected patch for portfolio link {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (DocumentNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error patching portfolio link: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * POST /api/portfolio/{id}/move
+     * Move a link between afterId and beforeId (either may be omitted to move
+     * to the start or end). Only the moved link is written, however far it
+     * moves. Returns 409 if a neighbor is missing or the two are out of order,
+     * e.g. because the client's view is stale; If-Match works as for PATCH.
+     */
+    @PostMapping("/{id}/move")
+    public ResponseEntity<Void> moveLink(
+            @PathVariable String id,
+            @RequestBody MoveRequest move,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        try {
+            Timestamp updateTime = portfolioService.moveLink(id, move.getAfterId(), move.getBeforeId(),
+                    ConditionalWrites.parseIfMatch(ifMatch));
+            return ResponseEntity.ok().eTag(ConditionalWrites.etag(updateTime)).build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected move for portfolio link {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (MoveConflictException e) {
+            log.warn("Conflicting move for portfolio link {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (DocumentNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error moving portfolio link: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * DELETE /api/portfolio/{id}
      * Delete a portfolio link.
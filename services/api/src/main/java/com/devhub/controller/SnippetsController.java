@@ -1,18 +1,32 @@
 package com.devhub.controller;
 
+import com.devhub.model.BatchGetResult;
 import com.devhub.model.CodeSnippet;
+import com.devhub.model.RevisionSummary;
+import com.devhub.model.SnippetDiff;
+import com.devhub.model.SnippetVersion;
+import com.devhub.model.Versioned;
+import com.devhub.repository.DocumentNotFoundException;
+import com.devhub.repository.PreconditionFailedException;
+import com.devhub.service.ChangeFeedService;
+import com.devhub.service.SnippetRevisionService;
 import com.devhub.service.SnippetService;
 import com.devhub.service.StorageService;
+import com.google.cloud.Timestamp;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -22,15 +36,24 @@ import java.util.concurrent.ExecutionException;
 @Slf4j
 @RestController
 @RequestMapping("/api/snippets")
-@CrossOrigin(origins = "*")  // Configure appropriately for production
+@CrossOrigin(origins = "*", exposedHeaders = {"ETag", "Server-Timing"})  // Configure appropriately for production
 public class SnippetsController {
 
     @Autowired
     private SnippetService snippetService;
 
+    @Autowired
+    private SnippetRevisionService revisionService;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
     @Autowired
     private StorageService storageService;
 
+    @Autowired
+    private StreamingJsonWriter streamingJsonWriter;
+
     /**
      * GET /api/snippets
      * Get all code snippets.
@@ -46,6 +69,42 @@ public class SnippetsController {
         }
     }
 
+    /**
+     * GET /api/snippets?stream=true
+     * Same result as GET /api/snippets, written to the response as the query
+     * returns it, so memory use and time to first byte stay flat as the
+     * collection grows. With ids, the multi-get below applies instead.
+     */
+    @GetMapping(params = {"stream=true", "!ids"})
+    public ResponseEntity<StreamingResponseBody> streamAllSnippets() {
+        try {
+            return streamingJsonWriter.write(snippetService.streamAllSnippets(), "snippets");
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error streaming snippets", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * GET /api/snippets?ids=a,b,c
+     * Get several snippets by ID in one batched read. Results follow the request
+     * order; missing IDs are marked with found=false. The result is bounded by
+     * devhub.batch-get.max-ids, so stream=true is ignored here.
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<BatchGetResult<CodeSnippet>>> getSnippetsByIds(@RequestParam("ids") List<String> ids) {
+        List<String> requested = ids.stream().map(String::trim).filter(id -> !id.isEmpty()).toList();
+        try {
+            return ResponseEntity.ok(snippetService.getSnippetsByIds(requested));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected multi-get of {} snippets: {}", requested.size(), e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error fetching snippets by ID", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * GET /api/snippets/public
      * Get only public snippets (for portfolio display).
@@ -61,6 +120,20 @@ public class SnippetsController {
         }
     }
 
+    /**
+     * GET /api/snippets/public?stream=true
+     * Streaming variant of GET /api/snippets/public.
+     */
+    @GetMapping(path = "/public", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamPublicSnippets() {
+        try {
+            return streamingJsonWriter.write(snippetService.streamPublicSnippets(), "public snippets");
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error streaming public snippets", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * GET /api/snippets/language/{language}
      * Get snippets by programming language.
@@ -76,6 +149,21 @@ public class SnippetsController {
         }
     }
 
+    /**
+     * GET /api/snippets/language/{language}?stream=true
+     * Streaming variant of GET /api/snippets/language/{language}.
+     */
+    @GetMapping(path = "/language/{language}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamSnippetsByLanguage(@PathVariable String language) {
+        try {
+            return streamingJsonWriter.write(snippetService.streamSnippetsByLanguage(language),
+                    "snippets for language " + language);
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error streaming snippets by language: {}", language, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * GET /api/snippets/tag/{tag}
      * Get snippets by tag.
@@ -91,6 +179,37 @@ public class SnippetsController {
         }
     }
 
+    /**
+     * GET /api/snippets/tag/{tag}?stream=true
+     * Streaming variant of GET /api/snippets/tag/{tag}.
+     */
+    @GetMapping(path = "/tag/{tag}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamSnippetsByTag(@PathVariable String tag) {
+        try {
+            return streamingJsonWriter.write(snippetService.streamSnippetsByTag(tag), "snippets with tag " + tag);
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error streaming snippets by tag: {}", tag, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * GET /api/snippets/changes
+     * Stream snippet changes (added, modified, removed) as Server-Sent Events.
+     * Reconnecting clients send Last-Event-ID to resume; a "reset" event means
+     * changes were missed and the client should refetch.
+     */
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            return ResponseEntity.ok(changeFeedService.subscribeToSnippets(lastEventId));
+        } catch (IllegalStateException e) {
+            log.warn("Rejecting snippet change feed subscriber: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     /**
      * GET /api/snippets/{id}
      * Get a specific snippet by ID.
@@ -98,17 +217,70 @@ public class SnippetsController {
     @GetMapping("/{id}")
     public ResponseEntity<CodeSnippet> getSnippetById(@PathVariable String id) {
         try {
-            CodeSnippet snippet = snippetService.getSnippetById(id);
+            Versioned<CodeSnippet> snippet = snippetService.getVersionedSnippetById(id);
             if (snippet == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(snippet);
+            return ResponseEntity.ok()
+                    .eTag(ConditionalWrites.etag(snippet.getUpdateTime()))
+                    .body(snippet.getValue());
         } catch (ExecutionException | InterruptedException e) {
             log.error("Error fetching snippet: {}", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * GET /api/snippets/{id}/revisions
+     * List a snippet's revisions, newest first, without their code.
+     */
+    @GetMapping("/{id}/revisions")
+    public ResponseEntity<List<RevisionSummary>> listRevisions(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(revisionService.listRevisions(id));
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error listing revisions of snippet: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * GET /api/snippets/{id}/revisions/{revision}
+     * Get a snippet as it was at the given revision.
+     */
+    @GetMapping("/{id}/revisions/{revision}")
+    public ResponseEntity<SnippetVersion> getRevision(@PathVariable String id, @PathVariable int revision) {
+        try {
+            SnippetVersion version = revisionService.getVersion(id, revision);
+            if (version == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(version);
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error fetching revision {} of snippet: {}", revision, id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * GET /api/snippets/{id}/diff?from=3&to=5
+     * Line-level differences between the code of two revisions.
+     */
+    @GetMapping("/{id}/diff")
+    public ResponseEntity<SnippetDiff> diffRevisions(@PathVariable String id, @RequestParam int from,
+                                                     @RequestParam int to) {
+        try {
+            SnippetDiff diff = revisionService.diff(id, from, to);
+            if (diff == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(diff);
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error diffing revisions {} and {} of snippet: {}", from, to, id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * POST /api/snippets
      * Create a new code snippet.
@@ -163,19 +335,50 @@ public class SnippetsController {
 
     /**
      * PUT /api/snippets/{id}
-     * Update an existing snippet.
+     * Update an existing snippet; the previous content stays in its revision history.
+     * Returns 409 if the snippet kept changing underneath the update.
      */
     @PutMapping("/{id}")
     public ResponseEntity<Void> updateSnippet(@PathVariable String id, @Valid @RequestBody CodeSnippet snippet) {
         try {
             snippetService.updateSnippet(id, snippet);
             return ResponseEntity.ok().build();
+        } catch (PreconditionFailedException | DocumentNotFoundException e) {
+            log.warn("Gave up updating snippet {} after concurrent changes", id);
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (ExecutionException | InterruptedException e) {
             log.error("Error updating snippet: {}", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * PATCH /api/snippets/{id}
+     * Update only the fields present in the request body. With If-Match set to
+     * the ETag from a previous GET or PATCH, the update is rejected with 412 if
+     * the snippet has changed since.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchSnippet(
+            @PathVariable String id,
+            @RequestBody Map<String, Object> fields,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        try {
+            Timestamp updateTime = snippetService.patchSnippet(id, fields, ConditionalWrites.parseIfMatch(ifMatch));
+            return ResponseEntity.ok().eTag(ConditionalWrites.etag(updateTime)).build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected patch for snippet {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (DocumentNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Error patching snippet: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * DELETE /api/snippets/{id}
      * Delete a snippet and its associated GCS file if it exists.
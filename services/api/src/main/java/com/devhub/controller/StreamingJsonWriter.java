@@ -0,0 +1,204 @@
+package com.devhub.controller;
+
+import com.devhub.repository.EntityStream;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes an {@link EntityStream} to the response as a JSON array one element
+ * at a time, instead of building the whole list and serializing it in one go.
+ *
+ * The first element is read before the response is committed, so a query that
+ * fails up front still gets a 500. After that the 200 is already sent: a
+ * failure mid-stream is logged and the response is aborted with the array left
+ * unterminated, so clients see malformed JSON rather than a short result.
+ *
+ * Output is flushed after the first element, then whenever flush-items
+ * elements or flush-bytes bytes have accumulated. Writes block while the client
+ * is slow to read, which stops pulling from the stream and lets the backend's
+ * own backpressure take over.
+ *
+ * Bodies run on the bounded executor from {@link com.devhub.config.StreamingConfig}.
+ * At most threads + queue-capacity responses are in progress at once; beyond
+ * that the request gets a 503 before any query result is read. If a body never
+ * runs (the request timed out or the client left while it was queued), the
+ * stream is closed when the async request completes.
+ */
+@Slf4j
+@Component
+class StreamingJsonWriter {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Value("${devhub.streaming.flush-items:100}")
+    private int flushItems;
+
+    @Value("${devhub.streaming.flush-bytes:65536}")
+    private long flushBytes;
+
+    @Value("${devhub.streaming.threads:16}")
+    private int threads;
+
+    @Value("${devhub.streaming.queue-capacity:16}")
+    private int queueCapacity;
+
+    // One per response in progress; never more than the executor can run or queue
+    private Semaphore slots;
+
+    @PostConstruct
+    void init() {
+        slots = new Semaphore(threads + queueCapacity);
+    }
+
+    /**
+     * Build a streaming response for the given stream, which is closed once written,
+     * or a 503 if too many streaming responses are already in progress.
+     *
+     * @param description what is being streamed, for log messages
+     */
+    <T> ResponseEntity<StreamingResponseBody> write(EntityStream<T> stream, String description)
+            throws ExecutionException, InterruptedException {
+        if (!slots.tryAcquire()) {
+            stream.close();
+            log.warn("Rejecting streamed {}: {} responses already in progress", description, threads + queueCapacity);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        T first;
+        try {
+            first = stream.next();
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            stream.close();
+            slots.release();
+            throw e;
+        }
+
+        // Exactly one of the body and the cleanup below takes ownership of the stream and slot
+        AtomicBoolean claimed = new AtomicBoolean();
+        registerCleanup(stream, claimed);
+
+        // The body is written on an async thread; keep its span under the request's
+        Observation parent = observationRegistry.getCurrentObservation();
+
+        StreamingResponseBody body = out -> {
+            if (!claimed.compareAndSet(false, true)) {
+                // Already abandoned and closed
+                return;
+            }
+            Observation observation = Observation.createNotStarted("devhub.serialization", observationRegistry)
+                    .contextualName("json.stream")
+                    .parentObservation(parent)
+                    .start();
+            CountingOutputStream counting = new CountingOutputStream(out);
+            try (stream; Observation.Scope scope = observation.openScope();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(counting)) {
+                // Never close an open array on failure; a truncated result must not look complete
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+                generator.writeStartArray();
+                int count = 0;
+                int unflushedItems = 0;
+                long flushedBytes = 0;
+                for (T entity = first; entity != null; entity = stream.next()) {
+                    generator.writeObject(entity);
+                    count++;
+                    unflushedItems++;
+
+                    long written = counting.count + generator.getOutputBuffered();
+                    if (count == 1 || unflushedItems >= flushItems || written - flushedBytes >= flushBytes) {
+                        generator.flush();
+                        unflushedItems = 0;
+                        flushedBytes = counting.count;
+                    }
+                }
+                generator.writeEndArray();
+                generator.flush();
+                log.debug("Streamed {} {} ({} bytes)", count, description, counting.count);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                observation.error(e);
+                throw new IOException("Interrupted while streaming " + description, e);
+            } catch (ExecutionException e) {
+                log.error("Error streaming {}; aborting response", description, e);
+                observation.error(e);
+                throw new IOException("Failed to stream " + description, e);
+            } catch (IOException | RuntimeException e) {
+                observation.error(e);
+                throw e;
+            } finally {
+                observation.stop();
+                slots.release();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Close the stream and free its slot once the async request completes, unless the body took them.
+     */
+    private void registerCleanup(EntityStream<?> stream, AtomicBoolean claimed) {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        WebAsyncUtils.getAsyncManager(attributes.getRequest()).registerCallableInterceptor(
+                StreamingJsonWriter.class.getName(), new CallableProcessingInterceptor() {
+                    @Override
+                    public <C> void afterCompletion(NativeWebRequest request, Callable<C> task) {
+                        if (claimed.compareAndSet(false, true)) {
+                            log.debug("Closing stream whose response body never ran");
+                            stream.close();
+                            slots.release();
+                        }
+                    }
+                });
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
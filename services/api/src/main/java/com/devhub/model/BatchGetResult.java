@@ -0,0 +1,21 @@
+package com.devhub.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of a multi-get response, in request order.
+ * Missing IDs are returned with found=false and no document.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGetResult<T> {
+
+    private String id;
+
+    private boolean found;
+
+    private T document;
+}
@@ -0,0 +1,21 @@
+package com.devhub.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Document-level change pushed to change feed subscribers.
+ * The SSE event name repeats the type and the SSE id carries the resumable event ID.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent {
+
+    private String type;  // "added", "modified" or "removed"
+
+    private String id;  // Firestore document ID
+
+    private Object document;  // Current document; null for "removed"
+}
@@ -19,7 +19,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collectionName = "snippets")
-public class CodeSnippet {
+public class CodeSnippet implements Identifiable {
 
     @DocumentId
     private String id;
@@ -48,4 +48,6 @@ public class CodeSnippet {
     private String description;  // Optional description
 
     private String author;  // Optional author name
+
+    private Integer revision;  // Current revision in the snippet's history; null if written before history existed
 }
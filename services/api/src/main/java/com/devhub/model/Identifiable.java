@@ -0,0 +1,11 @@
+package com.devhub.model;
+
+/**
+ * Entity with a document ID assigned by the storage backend.
+ */
+public interface Identifiable {
+
+    String getId();
+
+    void setId(String id);
+}
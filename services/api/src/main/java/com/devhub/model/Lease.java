@@ -0,0 +1,26 @@
+package com.devhub.model;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.annotation.DocumentId;
+import com.google.cloud.spring.data.firestore.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A time-limited claim on a background job, so only one pod runs it at a time.
+ * Document IDs are the job names, e.g. "portfolio-rebalance".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collectionName = "leases")
+public class Lease implements Identifiable {
+
+    @DocumentId
+    private String id;
+
+    private String holder;  // Pod that holds the lease
+
+    private Timestamp expiresAt;
+}
@@ -0,0 +1,24 @@
+package com.devhub.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One hunk of a stored line-level delta: at line index at (0-based, in the
+ * previous version) remove removeCount lines and insert the given lines.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LineEdit {
+
+    private Integer at;
+
+    private Integer removeCount;
+
+    private List<String> insert = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package com.devhub.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Target position for moving a portfolio link: between the two given links,
+ * either of which may be omitted to move to the start or end.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoveRequest {
+
+    private String afterId;  // Link that should come right before, or null for the start
+
+    private String beforeId;  // Link that should come right after, or null for the end
+}
@@ -17,7 +17,7 @@ import jakarta.validation.constraints.NotNull;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collectionName = "portfolio")
-public class PortfolioLink {
+public class PortfolioLink implements Identifiable {
 
     @DocumentId
     private String id;
@@ -31,6 +31,9 @@ public class PortfolioLink {
     @NotNull(message = "Order is required")
     private Integer order;
 
+    // Fractional rank key that sets display position; derived from order when not given
+    private String rank;
+
     private String category;  // e.g., "GitHub", "LinkedIn", "Blog"
 
     private String icon;  // Icon name or URL for frontend display
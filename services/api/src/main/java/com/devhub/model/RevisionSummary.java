@@ -0,0 +1,27 @@
+package com.devhub.model;
+
+import com.google.cloud.Timestamp;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entry in a snippet's revision list, without the code.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevisionSummary {
+
+    private Integer revision;
+
+    private Timestamp createdAt;
+
+    private String title;
+
+    private boolean snapshot;  // Stored in full rather than as a delta
+
+    private Integer linesAdded;
+
+    private Integer linesRemoved;
+}
@@ -0,0 +1,43 @@
+package com.devhub.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Entry point of the published static site: maps each read model to the
+ * immutable object currently holding it. Clients fetch this first, then the
+ * objects it names (paths are relative to the manifest).
+ *
+ * Keys are "portfolio", "portfolio/category/{category}", "snippets/public"
+ * and "snippets/public/language/{language}".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SiteManifest {
+
+    private long version;  // Increases by one with every publish
+
+    private String publishedAt;  // ISO-8601 instant
+
+    private Map<String, PublishedObject> objects = new TreeMap<>();
+
+    /**
+     * One rendered read model: a gzip'd JSON array, the same as the matching API response.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PublishedObject {
+
+        private String path;
+
+        private String sha256;  // Of the uncompressed JSON, to skip re-uploading unchanged content
+
+        private int count;  // Number of elements in the array
+    }
+}
@@ -0,0 +1,43 @@
+package com.devhub.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Line-level differences between the code of two snippet revisions.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnippetDiff {
+
+    private String snippetId;
+
+    private Integer fromRevision;
+
+    private Integer toRevision;
+
+    private List<Hunk> hunks = new ArrayList<>();
+
+    /**
+     * A run of changed lines: removed starts at fromLine in the old code and
+     * added at toLine in the new one (both 1-based).
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hunk {
+
+        private Integer fromLine;
+
+        private Integer toLine;
+
+        private List<String> removed = new ArrayList<>();
+
+        private List<String> added = new ArrayList<>();
+    }
+}
@@ -0,0 +1,51 @@
+package com.devhub.model;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.annotation.DocumentId;
+import com.google.cloud.spring.data.firestore.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One stored revision of a code snippet.
+ * Snapshots carry the full code; other revisions carry only the line edits
+ * from the previous revision, back to the snapshot named by baseRevision.
+ * Document IDs are {snippetId}_{revision, zero-padded}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collectionName = "snippetRevisions")
+public class SnippetRevision implements Identifiable {
+
+    @DocumentId
+    private String id;
+
+    private String snippetId;
+
+    private Integer revision;
+
+    private Integer baseRevision;  // Snapshot this revision's delta chain starts from (itself for snapshots)
+
+    private Timestamp createdAt;
+
+    private String title;
+
+    private String language;
+
+    private String description;
+
+    private List<String> tags = new ArrayList<>();
+
+    private String code;  // Full code, for snapshots only
+
+    private List<LineEdit> edits;  // Changes from the previous revision, for deltas only
+
+    private Integer linesAdded;
+
+    private Integer linesRemoved;
+}
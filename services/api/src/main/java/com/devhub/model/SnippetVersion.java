@@ -0,0 +1,34 @@
+package com.devhub.model;
+
+import com.google.cloud.Timestamp;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A snippet's content as of one revision, rebuilt from its revision history.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnippetVersion {
+
+    private String snippetId;
+
+    private Integer revision;
+
+    private Timestamp createdAt;  // When this revision was written
+
+    private String title;
+
+    private String language;
+
+    private String description;
+
+    private List<String> tags = new ArrayList<>();
+
+    private String code;
+}
@@ -0,0 +1,20 @@
+package com.devhub.model;
+
+import com.google.cloud.Timestamp;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A document together with its Firestore update time.
+ * The update time is exposed to clients as the ETag and checked on If-Match.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Versioned<T> {
+
+    private T value;
+
+    private Timestamp updateTime;
+}
@@ -0,0 +1,20 @@
+package com.devhub.repository;
+
+import java.util.List;
+
+/**
+ * Receives document changes from {@link DocumentRepository#watch}.
+ */
+public interface ChangeListener<T> {
+
+    /**
+     * Called when the watch is established, and again whenever it had to be
+     * re-established. Changes made while it was down are not delivered.
+     */
+    void onStart();
+
+    /**
+     * Called with the changes from one write or snapshot, in order.
+     */
+    void onChanges(List<EntityChange<T>> changes);
+}
@@ -0,0 +1,11 @@
+package com.devhub.repository;
+
+/**
+ * Thrown when a partial update targets a document that does not exist.
+ */
+public class DocumentNotFoundException extends RuntimeException {
+
+    public DocumentNotFoundException(String id) {
+        super("Document not found: " + id);
+    }
+}
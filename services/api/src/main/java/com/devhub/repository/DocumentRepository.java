@@ -0,0 +1,94 @@
+package com.devhub.repository;
+
+import com.devhub.model.Identifiable;
+import com.devhub.model.Versioned;
+import com.google.cloud.Timestamp;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Storage for one collection of entities.
+ *
+ * Implemented by {@link FirestoreRepository} and by the embedded log-structured
+ * backend; select with devhub.storage.backend. Both give the same ordering,
+ * filtering, update-time and precondition behavior.
+ */
+public interface DocumentRepository<T extends Identifiable> {
+
+    /**
+     * Run a query and return the matching entities in query order.
+     */
+    List<T> query(QuerySpec query) throws ExecutionException, InterruptedException;
+
+    /**
+     * Run a query and read the matching entities one at a time in query order,
+     * without holding the full result in memory.
+     */
+    EntityStream<T> stream(QuerySpec query) throws ExecutionException, InterruptedException;
+
+    /**
+     * Get an entity with its update time, or null if it does not exist.
+     */
+    Versioned<T> findById(String id) throws ExecutionException, InterruptedException;
+
+    /**
+     * Get several entities in one round trip, keyed by ID. Missing IDs are absent from the map.
+     */
+    Map<String, T> findAllById(Collection<String> ids) throws ExecutionException, InterruptedException;
+
+    /**
+     * Store a new entity under a generated ID and return the ID.
+     */
+    String create(T entity) throws ExecutionException, InterruptedException;
+
+    /**
+     * Store a new entity under the given ID and return its update time.
+     *
+     * @throws PreconditionFailedException if an entity with that ID already exists
+     */
+    Timestamp create(String id, T entity) throws ExecutionException, InterruptedException;
+
+    /**
+     * Create or fully overwrite the entity with the given ID and return its update time.
+     */
+    Timestamp save(String id, T entity) throws ExecutionException, InterruptedException;
+
+    /**
+     * Overwrite only the given fields of an existing entity.
+     *
+     * @param expectedUpdateTime only apply if the current update time matches, or null
+     * @return the new update time
+     * @throws DocumentNotFoundException if the entity does not exist
+     * @throws PreconditionFailedException if the update time does not match
+     */
+    Timestamp update(String id, Map<String, Object> fields, Timestamp expectedUpdateTime)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Delete an entity. Deleting a missing entity is not an error.
+     */
+    void delete(String id) throws ExecutionException, InterruptedException;
+
+    /**
+     * Delete several entities in one atomic write. Missing entities are
+     * skipped. Firestore allows at most 500 entities per call.
+     */
+    void deleteAll(Collection<String> ids) throws ExecutionException, InterruptedException;
+
+    /**
+     * Watch the whole collection for changes. Callbacks run on the given executor.
+     */
+    Watch watch(Executor executor, ChangeListener<T> listener);
+
+    /**
+     * Handle for an active {@link #watch}.
+     */
+    interface Watch {
+
+        void cancel();
+    }
+}
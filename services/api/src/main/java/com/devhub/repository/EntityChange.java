@@ -0,0 +1,11 @@
+package com.devhub.repository;
+
+/**
+ * A single document change delivered to a {@link ChangeListener}.
+ *
+ * @param entity the document after the change; null for REMOVED
+ */
+public record EntityChange<T>(Type type, String id, T entity) {
+
+    public enum Type { ADDED, MODIFIED, REMOVED }
+}
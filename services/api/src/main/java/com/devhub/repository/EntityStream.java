@@ -0,0 +1,25 @@
+package com.devhub.repository;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Pull-based cursor over a query result, from {@link DocumentRepository#stream}.
+ *
+ * Only a bounded number of entities are buffered ahead of the reader, so a
+ * slow reader slows the backend down instead of the result piling up in memory.
+ * Always close the stream, including when abandoning it early.
+ */
+public interface EntityStream<T> extends AutoCloseable {
+
+    /**
+     * Next entity in query order, or null once the result is exhausted.
+     * Blocks until the backend delivers it.
+     */
+    T next() throws ExecutionException, InterruptedException;
+
+    /**
+     * Stop reading; results not yet consumed are discarded.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,352 @@
+package com.devhub.repository;
+
+import com.devhub.model.Identifiable;
+import com.devhub.model.Versioned;
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DocumentRepository} backed by a Firestore collection.
+ */
+@Slf4j
+public class FirestoreRepository<T extends Identifiable> implements DocumentRepository<T> {
+
+    private static final long WATCH_RESTART_DELAY_SECONDS = 5;
+
+    private final Firestore firestore;
+    private final String collectionName;
+    private final Class<T> type;
+    private final int streamPrefetch;
+    private final ObservationRegistry observationRegistry;
+    private final HedgingPolicy hedging;
+
+    /**
+     * @param streamPrefetch page size of {@link #stream}, which reads one page ahead of the reader
+     * @param observationRegistry records the time spent mapping snapshots to entities
+     * @param hedging hedges slow {@link #findById} reads, or null to never hedge
+     */
+    public FirestoreRepository(Firestore firestore, String collectionName, Class<T> type, int streamPrefetch,
+                               ObservationRegistry observationRegistry, HedgingPolicy hedging) {
+        this.firestore = firestore;
+        this.collectionName = collectionName;
+        this.type = type;
+        this.streamPrefetch = streamPrefetch;
+        this.observationRegistry = observationRegistry;
+        this.hedging = hedging;
+    }
+
+    @Override
+    public List<T> query(QuerySpec spec) throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> docs = toQuery(spec).get().get().getDocuments();
+        return mapping().observe(() -> {
+            List<T> results = new ArrayList<>();
+            for (DocumentSnapshot doc : docs) {
+                T entity = toEntity(doc);
+                if (entity != null) {
+                    results.add(entity);
+                }
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public EntityStream<T> stream(QuerySpec spec) {
+        return new PagedStream(toQuery(spec), streamPrefetch);
+    }
+
+    @Override
+    public Versioned<T> findById(String id) throws ExecutionException, InterruptedException {
+        DocumentReference ref = firestore.collection(collectionName).document(id);
+        DocumentSnapshot doc = hedging != null ? hedging.read(ref::get) : ref.get().get();
+        if (!doc.exists()) {
+            return null;
+        }
+
+        T entity = toEntity(doc);
+        return entity != null ? new Versioned<>(entity, doc.getUpdateTime()) : null;
+    }
+
+    @Override
+    public Map<String, T> findAllById(Collection<String> ids) throws ExecutionException, InterruptedException {
+        CollectionReference collection = firestore.collection(collectionName);
+        DocumentReference[] refs = ids.stream()
+                .map(collection::document)
+                .toArray(DocumentReference[]::new);
+
+        List<DocumentSnapshot> docs = firestore.getAll(refs).get();
+        return mapping().observe(() -> {
+            Map<String, T> found = new HashMap<>();
+            for (DocumentSnapshot doc : docs) {
+                if (doc.exists()) {
+                    T entity = toEntity(doc);
+                    if (entity != null) {
+                        found.put(doc.getId(), entity);
+                    }
+                }
+            }
+            return found;
+        });
+    }
+
+    @Override
+    public String create(T entity) throws ExecutionException, InterruptedException {
+        ApiFuture<DocumentReference> result = firestore.collection(collectionName).add(entity);
+        return result.get().getId();
+    }
+
+    @Override
+    public Timestamp create(String id, T entity) throws ExecutionException, InterruptedException {
+        try {
+            return firestore.collection(collectionName).document(id).create(entity).get().getUpdateTime();
+        } catch (ExecutionException e) {
+            throw translate(e, id);
+        }
+    }
+
+    @Override
+    public Timestamp save(String id, T entity) throws ExecutionException, InterruptedException {
+        return firestore.collection(collectionName).document(id).set(entity).get().getUpdateTime();
+    }
+
+    @Override
+    public Timestamp update(String id, Map<String, Object> fields, Timestamp expectedUpdateTime)
+            throws ExecutionException, InterruptedException {
+        DocumentReference ref = firestore.collection(collectionName).document(id);
+        ApiFuture<WriteResult> result = expectedUpdateTime != null
+                ? ref.update(fields, Precondition.updatedAt(expectedUpdateTime))
+                : ref.update(fields);
+
+        try {
+            return result.get().getUpdateTime();
+        } catch (ExecutionException e) {
+            throw translate(e, id);
+        }
+    }
+
+    @Override
+    public void delete(String id) throws ExecutionException, InterruptedException {
+        firestore.collection(collectionName).document(id).delete().get();
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) throws ExecutionException, InterruptedException {
+        CollectionReference collection = firestore.collection(collectionName);
+        WriteBatch batch = firestore.batch();
+        ids.forEach(id -> batch.delete(collection.document(id)));
+        batch.commit().get();
+    }
+
+    @Override
+    public Watch watch(Executor executor, ChangeListener<T> listener) {
+        SnapshotWatch watch = new SnapshotWatch(executor, listener);
+        watch.register();
+        return watch;
+    }
+
+    /**
+     * Map Firestore's NOT_FOUND, and FAILED_PRECONDITION or ALREADY_EXISTS,
+     * onto the repository exceptions.
+     */
+    private static ExecutionException translate(ExecutionException e, String id) {
+        if (e.getCause() instanceof ApiException apiException) {
+            StatusCode.Code code = apiException.getStatusCode().getCode();
+            if (code == StatusCode.Code.NOT_FOUND) {
+                throw new DocumentNotFoundException(id);
+            }
+            if (code == StatusCode.Code.FAILED_PRECONDITION || code == StatusCode.Code.ALREADY_EXISTS) {
+                throw new PreconditionFailedException(id);
+            }
+        }
+        return e;
+    }
+
+    private Query toQuery(QuerySpec spec) {
+        Query query = firestore.collection(collectionName);
+        if (spec.hasFilter()) {
+            query = spec.getFilterOperator() == QuerySpec.Operator.EQUAL
+                    ? query.whereEqualTo(spec.getFilterField(), spec.getFilterValue())
+                    : query.whereArrayContains(spec.getFilterField(), spec.getFilterValue());
+        }
+        return query.orderBy(spec.getOrderField(), spec.getDirection() == QuerySpec.Direction.ASCENDING
+                ? Query.Direction.ASCENDING
+                : Query.Direction.DESCENDING);
+    }
+
+    private Observation mapping() {
+        return Observation.createNotStarted("devhub.mapping", observationRegistry)
+                .contextualName("firestore.map")
+                .lowCardinalityKeyValue("devhub.collection", collectionName);
+    }
+
+    private T toEntity(DocumentSnapshot doc) {
+        T entity = doc.toObject(type);
+        if (entity != null) {
+            entity.setId(doc.getId());
+        }
+        return entity;
+    }
+
+    /**
+     * Snapshot listener on the whole collection. The first snapshot lists every
+     * existing document, so it only signals onStart; later snapshots are
+     * translated into changes. On error the listener is re-registered after a
+     * delay, which signals onStart again.
+     */
+    private final class SnapshotWatch implements Watch {
+
+        private final Executor executor;
+        private final ChangeListener<T> listener;
+
+        // Confined to the executor
+        private boolean initialSnapshotSeen;
+
+        // Guarded by this
+        private ListenerRegistration registration;
+        private boolean cancelled;
+
+        SnapshotWatch(Executor executor, ChangeListener<T> listener) {
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        synchronized void register() {
+            if (cancelled) {
+                return;
+            }
+            log.info("Starting snapshot listener for collection: {}", collectionName);
+            initialSnapshotSeen = false;
+            registration = firestore.collection(collectionName).addSnapshotListener(executor, this::onSnapshot);
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            if (registration != null) {
+                registration.remove();
+                registration = null;
+            }
+        }
+
+        private void onSnapshot(QuerySnapshot snapshot, FirestoreException error) {
+            if (error != null) {
+                log.error("Snapshot listener for {} failed; restarting in {}s",
+                        collectionName, WATCH_RESTART_DELAY_SECONDS, error);
+                synchronized (this) {
+                    if (registration != null) {
+                        registration.remove();
+                        registration = null;
+                    }
+                }
+                CompletableFuture.delayedExecutor(WATCH_RESTART_DELAY_SECONDS, TimeUnit.SECONDS, executor)
+                        .execute(this::register);
+                return;
+            }
+
+            if (!initialSnapshotSeen) {
+                initialSnapshotSeen = true;
+                listener.onStart();
+                return;
+            }
+
+            List<EntityChange<T>> changes = new ArrayList<>();
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                QueryDocumentSnapshot doc = change.getDocument();
+                switch (change.getType()) {
+                    case ADDED -> changes.add(new EntityChange<>(EntityChange.Type.ADDED, doc.getId(), toEntity(doc)));
+                    case MODIFIED -> changes.add(new EntityChange<>(EntityChange.Type.MODIFIED, doc.getId(), toEntity(doc)));
+                    case REMOVED -> changes.add(new EntityChange<>(EntityChange.Type.REMOVED, doc.getId(), null));
+                }
+            }
+            if (!changes.isEmpty()) {
+                listener.onChanges(changes);
+            }
+        }
+    }
+
+    /**
+     * Reads a query one page at a time, each page starting after the last
+     * document of the one before, with the next page requested as soon as the
+     * current one arrives. At most two pages are held, so a slow reader stops
+     * further reads instead of piling up results; close cancels the page in
+     * flight, so an abandoned stream stops reading right away. (Firestore's
+     * streaming RunQuery gives the client no handle to cancel it.)
+     *
+     * Each page is a consistent snapshot, but the pages are not one snapshot
+     * together: a document written while the stream is open is returned in
+     * either version, or skipped if the write moved it behind the cursor.
+     */
+    private final class PagedStream implements EntityStream<T> {
+
+        private final Query query;
+        private final int pageSize;
+
+        // Confined to the reader, except that close may cancel pending
+        private Iterator<QueryDocumentSnapshot> page = Collections.emptyIterator();
+        private volatile ApiFuture<QuerySnapshot> pending;
+
+        PagedStream(Query query, int pageSize) {
+            this.query = query;
+            this.pageSize = pageSize;
+            this.pending = query.limit(pageSize).get();
+        }
+
+        @Override
+        public T next() throws ExecutionException, InterruptedException {
+            while (true) {
+                while (page.hasNext()) {
+                    T entity = toEntity(page.next());
+                    if (entity != null) {
+                        return entity;
+                    }
+                }
+
+                ApiFuture<QuerySnapshot> current = pending;
+                if (current == null) {
+                    return null;
+                }
+                List<QueryDocumentSnapshot> docs;
+                try {
+                    docs = current.get().getDocuments();
+                } catch (ExecutionException e) {
+                    pending = null;
+                    throw new ExecutionException("Streaming query on " + collectionName + " failed", e.getCause());
+                }
+
+                // A short page is the last one
+                pending = docs.size() < pageSize
+                        ? null
+                        : query.startAfter(docs.get(docs.size() - 1)).limit(pageSize).get();
+                page = docs.iterator();
+            }
+        }
+
+        @Override
+        public void close() {
+            ApiFuture<QuerySnapshot> current = pending;
+            pending = null;
+            page = Collections.emptyIterator();
+            if (current != null) {
+                current.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.devhub.repository;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Hedged reads: if a read has not answered within the hedge delay, issue an
+ * identical second read and take whichever answers first.
+ *
+ * The delay tracks a percentile (e.g. p95) of recent read latencies, clamped
+ * to [min-delay, max-delay], so only reads already slower than nearly all
+ * others are hedged. Every RPC's own latency is sampled, including the one
+ * that loses, so hedging does not drag the estimate down.
+ *
+ * Hedges are limited by a token budget: each read earns budget-percent / 100
+ * of a token, each hedge spends one, and at most max-burst tokens are banked.
+ * Extra load is therefore bounded at about budget-percent of reads even when
+ * the backend is slow across the board and every read would qualify.
+ *
+ * Metrics, tagged by collection:
+ * devhub.hedge.reads (all reads), devhub.hedge.fired (hedges sent),
+ * devhub.hedge.won (hedges that answered first), devhub.hedge.throttled
+ * (hedges skipped for lack of budget) and the gauge devhub.hedge.delay (ms).
+ */
+public class HedgingPolicy {
+
+    // Recompute the delay after this many new samples rather than on every read
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final double tokensPerRead;
+    private final double maxTokens;
+
+    private final long[] samples;
+    private int sampleCount;
+    private int nextSample;
+    private int samplesSinceRecompute;
+    private double tokens;
+
+    private volatile long delayNanos;
+
+    private final Counter reads;
+    private final Counter fired;
+    private final Counter won;
+    private final Counter throttled;
+
+    /**
+     * @param percentile latency percentile used as the hedge delay, between 0 and 1
+     * @param minDelayMillis lower bound on the delay
+     * @param maxDelayMillis upper bound on the delay, and its value until the first read completes
+     * @param budgetPercent hedges allowed per 100 reads in the long run
+     * @param maxBurst hedges that may be banked for a burst of slow reads
+     * @param window how many recent latencies the percentile is taken over
+     */
+    public HedgingPolicy(String collection, double percentile, long minDelayMillis, long maxDelayMillis,
+                         double budgetPercent, int maxBurst, int window, MeterRegistry meterRegistry) {
+        if (percentile <= 0 || percentile >= 1 || minDelayMillis > maxDelayMillis || window < 1) {
+            throw new IllegalArgumentException("Invalid hedging settings for " + collection);
+        }
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.tokensPerRead = budgetPercent / 100;
+        this.maxTokens = maxBurst;
+        this.samples = new long[window];
+        this.delayNanos = maxDelayNanos;
+
+        this.reads = Counter.builder("devhub.hedge.reads").tag("collection", collection).register(meterRegistry);
+        this.fired = Counter.builder("devhub.hedge.fired").tag("collection", collection).register(meterRegistry);
+        this.won = Counter.builder("devhub.hedge.won").tag("collection", collection).register(meterRegistry);
+        this.throttled = Counter.builder("devhub.hedge.throttled").tag("collection", collection).register(meterRegistry);
+        Gauge.builder("devhub.hedge.delay", this, policy -> policy.delayNanos / 1e6)
+                .tag("collection", collection)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a read, hedging it if it is slow.
+     *
+     * @param read issues the RPC; called a second time for the hedge
+     * @throws ExecutionException if every read issued failed (the first failure is reported)
+     */
+    public <V> V read(Supplier<ApiFuture<V>> read) throws ExecutionException, InterruptedException {
+        reads.increment();
+        earnToken();
+
+        ApiFuture<V> primary = issue(read);
+        try {
+            return primary.get(delayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Slow; hedge below
+        }
+
+        if (!spendToken()) {
+            throttled.increment();
+            return primary.get();
+        }
+        fired.increment();
+        ApiFuture<V> hedge = issue(read);
+
+        // First success wins; fail only once both have failed
+        CompletableFuture<V> first = new CompletableFuture<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        race(primary, first, failure, false);
+        race(hedge, first, failure, true);
+        try {
+            return first.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof ExecutionException cause ? cause : e;
+        }
+    }
+
+    private <V> ApiFuture<V> issue(Supplier<ApiFuture<V>> read) {
+        long start = System.nanoTime();
+        ApiFuture<V> future = read.get();
+        future.addListener(() -> record(System.nanoTime() - start), MoreExecutors.directExecutor());
+        return future;
+    }
+
+    private <V> void race(ApiFuture<V> future, CompletableFuture<V> first, AtomicReference<Throwable> failure,
+                          boolean isHedge) {
+        ApiFutures.addCallback(future, new ApiFutureCallback<>() {
+            @Override
+            public void onSuccess(V result) {
+                if (first.complete(result) && isHedge) {
+                    won.increment();
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (!failure.compareAndSet(null, t)) {
+                    first.completeExceptionally(new ExecutionException(failure.get()));
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private synchronized void earnToken() {
+        tokens = Math.min(maxTokens, tokens + tokensPerRead);
+    }
+
+    private synchronized boolean spendToken() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    private synchronized void record(long latencyNanos) {
+        samples[nextSample] = latencyNanos;
+        nextSample = (nextSample + 1) % samples.length;
+        sampleCount = Math.min(sampleCount + 1, samples.length);
+
+        if (++samplesSinceRecompute >= RECOMPUTE_EVERY || sampleCount < RECOMPUTE_EVERY) {
+            samplesSinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            long estimate = sorted[Math.min(sampleCount - 1, (int) (percentile * sampleCount))];
+            delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, estimate));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.devhub.repository;
+
+import com.devhub.model.Identifiable;
+import com.devhub.model.Versioned;
+import com.google.cloud.Timestamp;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Decorator that records every repository call as an observation named
+ * devhub.repository, with contextual names like "firestore.query". Each one
+ * becomes a tracing span and a Server-Timing entry for the current request.
+ *
+ * {@link #watch} is not observed; its callbacks run in the background, outside any request.
+ */
+public class ObservedRepository<T extends Identifiable> implements DocumentRepository<T> {
+
+    private final DocumentRepository<T> delegate;
+    private final String backend;
+    private final String collection;
+    private final ObservationRegistry registry;
+
+    public ObservedRepository(DocumentRepository<T> delegate, String backend, String collection,
+                              ObservationRegistry registry) {
+        this.delegate = delegate;
+        this.backend = backend;
+        this.collection = collection;
+        this.registry = registry;
+    }
+
+    @Override
+    public List<T> query(QuerySpec query) throws ExecutionException, InterruptedException {
+        return observe("query", () -> delegate.query(query));
+    }
+
+    @Override
+    public EntityStream<T> stream(QuerySpec query) throws ExecutionException, InterruptedException {
+        return observe("stream", () -> delegate.stream(query));
+    }
+
+    @Override
+    public Versioned<T> findById(String id) throws ExecutionException, InterruptedException {
+        return observe("get", () -> delegate.findById(id));
+    }
+
+    @Override
+    public Map<String, T> findAllById(Collection<String> ids) throws ExecutionException, InterruptedException {
+        return observe("getAll", () -> delegate.findAllById(ids));
+    }
+
+    @Override
+    public String create(T entity) throws ExecutionException, InterruptedException {
+        return observe("create", () -> delegate.create(entity));
+    }
+
+    @Override
+    public Timestamp create(String id, T entity) throws ExecutionException, InterruptedException {
+        return observe("create", () -> delegate.create(id, entity));
+    }
+
+    @Override
+    public Timestamp save(String id, T entity) throws ExecutionException, InterruptedException {
+        return observe("save", () -> delegate.save(id, entity));
+    }
+
+    @Override
+    public Timestamp update(String id, Map<String, Object> fields, Timestamp expectedUpdateTime)
+            throws ExecutionException, InterruptedException {
+        return observe("update", () -> delegate.update(id, fields, expectedUpdateTime));
+    }
+
+    @Override
+    public void delete(String id) throws ExecutionException, InterruptedException {
+        observe("delete", () -> {
+            delegate.delete(id);
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) throws ExecutionException, InterruptedException {
+        observe("deleteAll", () -> {
+            delegate.deleteAll(ids);
+            return null;
+        });
+    }
+
+    @Override
+    public Watch watch(Executor executor, ChangeListener<T> listener) {
+        return delegate.watch(executor, listener);
+    }
+
+    private <R> R observe(String operation, RepositoryCall<R> call) throws ExecutionException, InterruptedException {
+        Observation observation = Observation.createNotStarted("devhub.repository", registry)
+                .contextualName(backend + "." + operation)
+                .lowCardinalityKeyValue("devhub.backend", backend)
+                .lowCardinalityKeyValue("devhub.collection", collection)
+                .lowCardinalityKeyValue("devhub.operation", operation)
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return call.call();
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RepositoryCall<R> {
+
+        R call() throws ExecutionException, InterruptedException;
+    }
+}
@@ -0,0 +1,12 @@
+package com.devhub.repository;
+
+/**
+ * Thrown when a conditional write finds the document was modified since the
+ * expected update time.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String id) {
+        super("Document was modified concurrently: " + id);
+    }
+}
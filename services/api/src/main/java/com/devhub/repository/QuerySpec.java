@@ -0,0 +1,72 @@
+package com.devhub.repository;
+
+/**
+ * Backend-neutral description of a collection query: at most one filter and
+ * one sort order, which covers every query the services issue.
+ *
+ * As in Firestore, documents missing the order field are not returned, and
+ * documents whose order field is null sort before all other values.
+ */
+public final class QuerySpec {
+
+    public enum Direction { ASCENDING, DESCENDING }
+
+    public enum Operator { EQUAL, ARRAY_CONTAINS }
+
+    private final String orderField;
+    private final Direction direction;
+    private final String filterField;
+    private final Operator filterOperator;
+    private final Object filterValue;
+
+    private QuerySpec(String orderField, Direction direction, String filterField, Operator filterOperator,
+                      Object filterValue) {
+        this.orderField = orderField;
+        this.direction = direction;
+        this.filterField = filterField;
+        this.filterOperator = filterOperator;
+        this.filterValue = filterValue;
+    }
+
+    public static QuerySpec orderBy(String field, Direction direction) {
+        return new QuerySpec(field, direction, null, null, null);
+    }
+
+    public QuerySpec whereEqualTo(String field, Object value) {
+        return new QuerySpec(orderField, direction, field, Operator.EQUAL, value);
+    }
+
+    public QuerySpec whereArrayContains(String field, Object value) {
+        return new QuerySpec(orderField, direction, field, Operator.ARRAY_CONTAINS, value);
+    }
+
+    public String getOrderField() {
+        return orderField;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public boolean hasFilter() {
+        return filterField != null;
+    }
+
+    public String getFilterField() {
+        return filterField;
+    }
+
+    public Operator getFilterOperator() {
+        return filterOperator;
+    }
+
+    public Object getFilterValue() {
+        return filterValue;
+    }
+
+    @Override
+    public String toString() {
+        return (hasFilter() ? filterField + " " + filterOperator + " " + filterValue + ", " : "")
+                + "order by " + orderField + " " + direction;
+    }
+}
@@ -0,0 +1,581 @@
+package com.devhub.repository.embedded;
+
+import com.devhub.model.Identifiable;
+import com.devhub.model.Versioned;
+import com.devhub.repository.ChangeListener;
+import com.devhub.repository.DocumentNotFoundException;
+import com.devhub.repository.DocumentRepository;
+import com.devhub.repository.EntityChange;
+import com.devhub.repository.EntityStream;
+import com.devhub.repository.PreconditionFailedException;
+import com.devhub.repository.QuerySpec;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@link DocumentRepository} for one collection stored in an embedded {@link LogFile}.
+ *
+ * Every write appends the full document to the log; the in-memory primary
+ * index maps each ID to the offset of its latest version, so a read is one
+ * lookup plus decoding bytes straight from the mapped file. Secondary indexes
+ * on the configured fields are sorted (value, ID) sets that serve both equality
+ * filters and ordering. The indexes are rebuilt from the log on startup.
+ *
+ * Reads run concurrently under a read lock; writes and compaction take the write lock.
+ */
+@Slf4j
+public class EmbeddedRepository<T extends Identifiable> implements DocumentRepository<T>, Closeable {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() { };
+
+    private static final String ID_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int ID_LENGTH = 20;
+
+    private final String collection;
+    private final Class<T> type;
+    private final ObjectMapper mapper;
+    private final LogFile logFile;
+    private final SecureRandom random = new SecureRandom();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> primary = new HashMap<>();
+    private final Map<String, NavigableSet<IndexKey>> indexes = new HashMap<>();
+    private final List<Registration<T>> listeners = new CopyOnWriteArrayList<>();
+    private Timestamp lastUpdateTime = Timestamp.MIN_VALUE;
+    private long liveBytes;
+
+    EmbeddedRepository(Path file, String collection, Class<T> type, Set<String> indexedFields, ObjectMapper mapper,
+                       long initialLogBytes, boolean syncWrites) throws IOException {
+        this.collection = collection;
+        this.type = type;
+        this.mapper = mapper;
+        for (String field : indexedFields) {
+            indexes.put(field, new TreeSet<>());
+        }
+
+        this.logFile = LogFile.open(file, initialLogBytes, syncWrites, this::replay);
+        log.info("Opened embedded collection {}: {} documents, {} bytes in log", collection, primary.size(), logFile.size());
+    }
+
+    @Override
+    public List<T> query(QuerySpec spec) throws ExecutionException {
+        lock.readLock().lock();
+        try {
+            List<Match> matches = matches(spec, true);
+            List<T> results = new ArrayList<>(matches.size());
+            for (Match match : matches) {
+                results.add(toEntity(match.id(), match.doc() != null ? match.doc() : load(match.id())));
+            }
+            return results;
+        } catch (IOException e) {
+            throw new ExecutionException("Failed to read " + collection, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Resolves the matching IDs up front, then decodes one document per
+     * {@link EntityStream#next} under a short read lock, so writers are not held
+     * up by a slow reader. Documents deleted in the meantime are skipped and
+     * documents modified in the meantime are returned in their newer version.
+     */
+    @Override
+    public EntityStream<T> stream(QuerySpec spec) throws ExecutionException {
+        List<String> ids;
+        lock.readLock().lock();
+        try {
+            ids = matches(spec, false).stream().map(Match::id).toList();
+        } catch (IOException e) {
+            throw new ExecutionException("Failed to read " + collection, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new IdStream(ids.iterator());
+    }
+
+    @Override
+    public Versioned<T> findById(String id) throws ExecutionException {
+        lock.readLock().lock();
+        try {
+            Entry entry = primary.get(id);
+            if (entry == null) {
+                return null;
+            }
+            return new Versioned<>(toEntity(id, load(id)), entry.updateTime());
+        } catch (IOException e) {
+            throw new ExecutionException("Failed to read " + collection + "/" + id, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, T> findAllById(Collection<String> ids) throws ExecutionException {
+        lock.readLock().lock();
+        try {
+            Map<String, T> found = new HashMap<>();
+            for (String id : ids) {
+                if (primary.containsKey(id)) {
+                    found.put(id, toEntity(id, load(id)));
+                }
+            }
+            return found;
+        } catch (IOException e) {
+            throw new ExecutionException("Failed to read " + collection, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String create(T entity) throws ExecutionException {
+        lock.writeLock().lock();
+        try {
+            String id;
+            do {
+                id = newId();
+            } while (primary.containsKey(id));
+
+            put(id, toDocument(entity));
+            return id;
+        } catch (IOException e) {
+            throw new ExecutionException("Failed to write " + collection, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Timestamp create(String id, T entity) throws ExecutionException {
+        lock.writeLock().lock();
+        try {
+            if (primary.containsKey(id)) {
+                throw new PreconditionFailedException(id);
+            }
+            return put(id, toDocument(entity));
+        } catch (IOException e) {
+            throw new ExecutionException("Failed to write " + collection + "/" + id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Timestamp save(String id, T entity) throws ExecutionException {
+        lock.writeLock().lock();
+        try {
+            return put(id, toDocument(entity));
+        } catch (IOException e) {
+            throw new ExecutionException("Failed to write " + collection + "/" + id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Timestamp update(String id, Map<String, Object> fields, Timestamp expectedUpdateTime)
+            throws ExecutionException {
+        lock.writeLock().lock();
+        try {
+            Entry entry = primary.get(id);
+            if (entry == null) {
+                throw new DocumentNotFoundException(id);
+            }
+            if (expectedUpdateTime != null && !expectedUpdateTime.equals(entry.updateTime())) {
+                throw new PreconditionFailedException(id);
+            }
+
+            Map<String, Object> doc = load(id);
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                doc.put(field.getKey(), mapper.convertValue(field.getValue(), Object.class));
+            }
+            return put(id, doc);
+        } catch (IOException e) {
+            throw new ExecutionException("Failed to write " + collection + "/" + id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(String id) throws ExecutionException {
+        lock.writeLock().lock();
+        try {
+            remove(id);
+        } catch (IOException e) {
+            throw new ExecutionException("Failed to delete " + collection + "/" + id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Atomic for readers, which cannot observe a partial batch under the write
+     * lock. The records are appended one by one, so a crash in the middle of the
+     * batch can leave only some of the deletions in the log.
+     */
+    @Override
+    public void deleteAll(Collection<String> ids) throws ExecutionException {
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                remove(id);
+            }
+        } catch (IOException e) {
+            throw new ExecutionException("Failed to delete from " + collection, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Watch watch(Executor executor, ChangeListener<T> listener) {
+        Registration<T> registration = new Registration<>(executor, listener);
+        // Queue onStart before registering so it precedes every change on a serial executor
+        executor.execute(listener::onStart);
+        listeners.add(registration);
+        return () -> listeners.remove(registration);
+    }
+
+    /**
+     * Rewrite the log without superseded versions and deletes once enough of it is garbage.
+     *
+     * @return true if the log was compacted
+     */
+    boolean compactIfNeeded(long minGarbageBytes) throws IOException {
+        lock.writeLock().lock();
+        try {
+            long size = logFile.size();
+            long garbage = size - liveBytes;
+            if (garbage < minGarbageBytes || garbage < size / 2) {
+                return false;
+            }
+
+            List<String> ids = new ArrayList<>(primary.keySet());
+            List<byte[]> payloads = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Entry entry = primary.get(id);
+                payloads.add(logFile.read(entry.offset(), entry.length()));
+            }
+
+            int[] offsets = logFile.compact(payloads);
+            for (int i = 0; i < ids.size(); i++) {
+                Entry entry = primary.get(ids.get(i));
+                primary.put(ids.get(i), new Entry(offsets[i], entry.length(), entry.updateTime(), entry.indexed()));
+            }
+            liveBytes = logFile.size();
+
+            log.info("Compacted embedded collection {}: {} -> {} bytes", collection, size, liveBytes);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            logFile.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replay(byte recordType, int payloadOffset, byte[] payload) {
+        try {
+            StoredDocument stored = mapper.readValue(payload, StoredDocument.class);
+            if (stored.updateTime().compareTo(lastUpdateTime) > 0) {
+                lastUpdateTime = stored.updateTime();
+            }
+
+            if (recordType == LogFile.PUT) {
+                index(stored.id(), payloadOffset, payload.length, stored.updateTime(), stored.doc());
+            } else {
+                Entry entry = primary.get(stored.id());
+                if (entry != null) {
+                    unindex(stored.id(), entry);
+                }
+            }
+        } catch (IOException e) {
+            // The checksum matched, so this is a format problem rather than a torn write
+            throw new IllegalStateException("Unreadable record in " + collection + " log at offset " + payloadOffset, e);
+        }
+    }
+
+    private void remove(String id) throws IOException {
+        Entry entry = primary.get(id);
+        if (entry == null) {
+            return;
+        }
+
+        logFile.append(LogFile.DELETE, mapper.writeValueAsBytes(new StoredDocument(id, nextUpdateTime(), null)));
+        unindex(id, entry);
+        publish(new EntityChange<>(EntityChange.Type.REMOVED, id, null));
+    }
+
+    private Timestamp put(String id, Map<String, Object> doc) throws IOException {
+        boolean existed = primary.containsKey(id);
+        Timestamp updateTime = nextUpdateTime();
+        byte[] payload = mapper.writeValueAsBytes(new StoredDocument(id, updateTime, doc));
+
+        int offset = logFile.append(LogFile.PUT, payload);
+        index(id, offset, payload.length, updateTime, doc);
+
+        publish(new EntityChange<>(existed ? EntityChange.Type.MODIFIED : EntityChange.Type.ADDED,
+                id, toEntity(id, doc)));
+        return updateTime;
+    }
+
+    private void index(String id, int offset, int length, Timestamp updateTime, Map<String, Object> doc) {
+        Entry previous = primary.get(id);
+        if (previous != null) {
+            unindex(id, previous);
+        }
+
+        @SuppressWarnings("rawtypes")
+        Map<String, Comparable> indexed = new HashMap<>();
+        for (Map.Entry<String, NavigableSet<IndexKey>> index : indexes.entrySet()) {
+            @SuppressWarnings("rawtypes")
+            Comparable value = Values.orderValue(doc, index.getKey());
+            if (value != null) {
+                indexed.put(index.getKey(), value);
+                index.getValue().add(new IndexKey(value, id));
+            }
+        }
+
+        primary.put(id, new Entry(offset, length, updateTime, indexed));
+        liveBytes += LogFile.HEADER_BYTES + length;
+    }
+
+    private void unindex(String id, Entry entry) {
+        entry.indexed().forEach((field, value) -> indexes.get(field).remove(new IndexKey(value, id)));
+        primary.remove(id);
+        liveBytes -= LogFile.HEADER_BYTES + entry.length();
+    }
+
+    /**
+     * Notify watchers; called under the write lock so changes are queued in commit order.
+     */
+    private void publish(EntityChange<T> change) {
+        for (Registration<T> registration : listeners) {
+            registration.executor().execute(() -> registration.listener().onChanges(List.of(change)));
+        }
+    }
+
+    private NavigableSet<IndexKey> equalRange(String field, Object value) {
+        @SuppressWarnings("rawtypes")
+        Comparable normalized = Values.normalize(value);
+        if (normalized == null) {
+            return new TreeSet<>();
+        }
+        return indexes.get(field).subSet(new IndexKey(normalized, ""), true, new IndexKey(normalized, null), true);
+    }
+
+    private Map<String, Object> load(String id) throws IOException {
+        Entry entry = primary.get(id);
+        return mapper.readValue(logFile.read(entry.offset(), entry.length()), StoredDocument.class).doc();
+    }
+
+    /**
+     * Matching documents in query order, decoding only what the filter or sort
+     * needs. With keepDocs the decoded documents are returned too; a null doc
+     * means it was not needed for planning.
+     */
+    private List<Match> matches(QuerySpec spec, boolean keepDocs) throws IOException {
+        String orderField = spec.getOrderField();
+        boolean descending = spec.getDirection() == QuerySpec.Direction.DESCENDING;
+        List<Match> matches = new ArrayList<>();
+
+        if (spec.hasFilter() && spec.getFilterOperator() == QuerySpec.Operator.EQUAL
+                && indexes.containsKey(spec.getFilterField())) {
+            // Equality on an indexed field: take the matching slice, then sort
+            for (IndexKey key : equalRange(spec.getFilterField(), spec.getFilterValue())) {
+                Map<String, Object> doc = null;
+                @SuppressWarnings("rawtypes")
+                Comparable value;
+                if (indexes.containsKey(orderField)) {
+                    value = primary.get(key.id()).indexed().get(orderField);
+                } else {
+                    doc = load(key.id());
+                    value = Values.orderValue(doc, orderField);
+                }
+                if (value != null) {
+                    matches.add(new Match(key.id(), value, keepDocs ? doc : null));
+                }
+            }
+            return sorted(matches, descending);
+        }
+
+        if (indexes.containsKey(orderField)) {
+            // Walk the order index; documents missing the field are not in it
+            NavigableSet<IndexKey> index = indexes.get(orderField);
+            for (IndexKey key : descending ? index.descendingSet() : index) {
+                Map<String, Object> doc = null;
+                if (spec.hasFilter()) {
+                    doc = load(key.id());
+                    if (!matchesFilter(doc, spec)) {
+                        continue;
+                    }
+                }
+                matches.add(new Match(key.id(), key.value(), keepDocs ? doc : null));
+            }
+            return matches;
+        }
+
+        for (String id : primary.keySet()) {
+            Map<String, Object> doc = load(id);
+            @SuppressWarnings("rawtypes")
+            Comparable value = Values.orderValue(doc, orderField);
+            if (value != null && matchesFilter(doc, spec)) {
+                matches.add(new Match(id, value, keepDocs ? doc : null));
+            }
+        }
+        return sorted(matches, descending);
+    }
+
+    /**
+     * Same ordering as the indexes: by value, then ID.
+     */
+    private static List<Match> sorted(List<Match> matches, boolean descending) {
+        Comparator<Match> order = Comparator.comparing(match -> new IndexKey(match.value(), match.id()));
+        matches.sort(descending ? order.reversed() : order);
+        return matches;
+    }
+
+    private static boolean matchesFilter(Map<String, Object> doc, QuerySpec spec) {
+        if (!spec.hasFilter()) {
+            return true;
+        }
+        Object stored = doc.get(spec.getFilterField());
+        return spec.getFilterOperator() == QuerySpec.Operator.EQUAL
+                ? Values.matchesEqual(stored, spec.getFilterValue())
+                : Values.matchesArrayContains(stored, spec.getFilterValue());
+    }
+
+    private Map<String, Object> toDocument(T entity) {
+        Map<String, Object> doc = mapper.convertValue(entity, MAP_TYPE);
+        doc.remove("id");
+        return doc;
+    }
+
+    private T toEntity(String id, Map<String, Object> doc) {
+        T entity = mapper.convertValue(doc, type);
+        entity.setId(id);
+        return entity;
+    }
+
+    /**
+     * Microsecond-precision, strictly increasing update times, so each write
+     * has a distinct value to use as an ETag.
+     */
+    private Timestamp nextUpdateTime() {
+        Timestamp now = Timestamp.now();
+        long nowMicros = now.getSeconds() * 1_000_000L + now.getNanos() / 1000;
+        long lastMicros = lastUpdateTime.getSeconds() * 1_000_000L + lastUpdateTime.getNanos() / 1000;
+        long micros = Math.max(nowMicros, lastMicros + 1);
+
+        lastUpdateTime = Timestamp.ofTimeSecondsAndNanos(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000);
+        return lastUpdateTime;
+    }
+
+    private String newId() {
+        StringBuilder id = new StringBuilder(ID_LENGTH);
+        for (int i = 0; i < ID_LENGTH; i++) {
+            id.append(ID_ALPHABET.charAt(random.nextInt(ID_ALPHABET.length())));
+        }
+        return id.toString();
+    }
+
+    /**
+     * Cursor over IDs resolved by {@link #stream}.
+     */
+    private final class IdStream implements EntityStream<T> {
+
+        private final Iterator<String> ids;
+
+        IdStream(Iterator<String> ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public T next() throws ExecutionException {
+            while (ids.hasNext()) {
+                String id = ids.next();
+                lock.readLock().lock();
+                try {
+                    if (primary.containsKey(id)) {
+                        return toEntity(id, load(id));
+                    }
+                } catch (IOException e) {
+                    throw new ExecutionException("Failed to read " + collection + "/" + id, e);
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Log payload: the full document at one version, or a tombstone with a null doc.
+     */
+    record StoredDocument(String id, Timestamp updateTime, Map<String, Object> doc) {
+    }
+
+    private record Entry(int offset, int length, Timestamp updateTime,
+                         @SuppressWarnings("rawtypes") Map<String, Comparable> indexed) {
+    }
+
+    private record Match(String id, @SuppressWarnings("rawtypes") Comparable value, Map<String, Object> doc) {
+    }
+
+    private record Registration<T>(Executor executor, ChangeListener<T> listener) {
+    }
+
+    /**
+     * Secondary index key ordered by value, then ID; a null ID sorts after every
+     * ID so it can bound an equality range.
+     */
+    private record IndexKey(@SuppressWarnings("rawtypes") Comparable value, String id) implements Comparable<IndexKey> {
+
+        @Override
+        public int compareTo(IndexKey other) {
+            int byValue = Values.compare(value, other.value);
+            if (byValue != 0) {
+                return byValue;
+            }
+            if (id == null || other.id == null) {
+                return id == other.id ? 0 : (id == null ? 1 : -1);
+            }
+            return id.compareTo(other.id);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.devhub.repository.embedded;
+
+import com.devhub.model.Identifiable;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.google.cloud.Timestamp;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded storage engine: one append-only log per collection in a local data
+ * directory, with background compaction.
+ *
+ * Intended for local development and single-instance deployments without
+ * Firestore; every collection lives in this process, so it does not scale out.
+ */
+@Slf4j
+public class EmbeddedStore implements Closeable {
+
+    private final Path dataDir;
+    private final long initialLogBytes;
+    private final boolean syncWrites;
+    private final long compactionMinGarbageBytes;
+
+    private final ObjectMapper mapper = createMapper();
+    private final List<EmbeddedRepository<?>> repositories = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService compactor;
+
+    public EmbeddedStore(Path dataDir, long initialLogBytes, boolean syncWrites,
+                         long compactionIntervalSeconds, long compactionMinGarbageBytes) throws IOException {
+        this.dataDir = Files.createDirectories(dataDir);
+        this.initialLogBytes = initialLogBytes;
+        this.syncWrites = syncWrites;
+        this.compactionMinGarbageBytes = compactionMinGarbageBytes;
+
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "embedded-store-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compact, compactionIntervalSeconds, compactionIntervalSeconds,
+                TimeUnit.SECONDS);
+
+        log.info("Embedded store at {} (syncWrites={})", this.dataDir.toAbsolutePath(), syncWrites);
+    }
+
+    /**
+     * Open the repository for a collection, replaying its log.
+     *
+     * @param indexedFields fields with a sorted secondary index; queries filtering
+     *                      by equality on, or ordering by, any other field scan the collection
+     */
+    public <T extends Identifiable> EmbeddedRepository<T> repository(String collection, Class<T> type,
+                                                                     Set<String> indexedFields) throws IOException {
+        EmbeddedRepository<T> repository = new EmbeddedRepository<>(dataDir.resolve(collection + ".log"),
+                collection, type, indexedFields, mapper, initialLogBytes, syncWrites);
+        repositories.add(repository);
+        return repository;
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdownNow();
+        for (EmbeddedRepository<?> repository : repositories) {
+            repository.close();
+        }
+    }
+
+    private void compact() {
+        for (EmbeddedRepository<?> repository : repositories) {
+            try {
+                repository.compactIfNeeded(compactionMinGarbageBytes);
+            } catch (Exception e) {
+                log.error("Compaction failed", e);
+            }
+        }
+    }
+
+    /**
+     * Timestamps are stored as {seconds, nanos}, the same shape Firestore's REST API uses.
+     */
+    private static ObjectMapper createMapper() {
+        SimpleModule timestamps = new SimpleModule();
+        timestamps.addSerializer(Timestamp.class, new StdSerializer<>(Timestamp.class) {
+            @Override
+            public void serialize(Timestamp value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartObject();
+                gen.writeNumberField("seconds", value.getSeconds());
+                gen.writeNumberField("nanos", value.getNanos());
+                gen.writeEndObject();
+            }
+        });
+        timestamps.addDeserializer(Timestamp.class, new StdDeserializer<>(Timestamp.class) {
+            @Override
+            public Timestamp deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                JsonNode node = parser.readValueAsTree();
+                return Timestamp.ofTimeSecondsAndNanos(node.path("seconds").asLong(), node.path("nanos").asInt());
+            }
+        });
+
+        return new ObjectMapper()
+                .registerModule(timestamps)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+}
@@ -0,0 +1,257 @@
+package com.devhub.repository.embedded;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped record log.
+ *
+ * Record layout: [payload length:int][crc32 of type+payload:int][type:byte][payload].
+ * The length is written last, so a record only becomes visible once its body
+ * is in place; the file is pre-extended with zeros and a zero length marks the
+ * end of the log. On open, the log is scanned and cut at the first record whose
+ * length runs past the file or whose checksum does not match (a torn write
+ * from a crash); everything after that point is zeroed.
+ *
+ * Offsets are ints, as the whole log is one mapping, so a log is limited to
+ * MAX_BYTES; appends, compaction and opening fail with an IOException beyond it.
+ *
+ * Not thread-safe for writers; callers serialize appends and compaction and
+ * may read concurrently with each other.
+ */
+@Slf4j
+final class LogFile implements Closeable {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+
+    static final int HEADER_BYTES = 9;
+
+    // Largest mapping a single MappedByteBuffer can address
+    static final long MAX_BYTES = Integer.MAX_VALUE;
+
+    private static final String COMPACT_SUFFIX = ".compact";
+
+    private final Path path;
+    private final long initialCapacity;
+    private final boolean syncWrites;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+
+    /**
+     * Visits each intact record during recovery.
+     */
+    interface RecordVisitor {
+
+        void visit(byte type, int payloadOffset, byte[] payload);
+    }
+
+    private LogFile(Path path, long initialCapacity, boolean syncWrites) {
+        this.path = path;
+        this.initialCapacity = initialCapacity;
+        this.syncWrites = syncWrites;
+    }
+
+    /**
+     * Open (or create) a log and replay every intact record into the visitor.
+     */
+    static LogFile open(Path path, long initialCapacity, boolean syncWrites, RecordVisitor visitor) throws IOException {
+        // A leftover compaction file means we crashed before the swap; the original is still authoritative
+        Files.deleteIfExists(compactPath(path));
+
+        long size = Math.max(initialCapacity, Files.exists(path) ? Files.size(path) : 0);
+        if (size > MAX_BYTES) {
+            throw new IOException("Log " + path + " is " + size + " bytes, over the " + MAX_BYTES + " byte limit");
+        }
+        LogFile log = new LogFile(path, initialCapacity, syncWrites);
+        log.map(size);
+        log.recover(visitor);
+        return log;
+    }
+
+    /**
+     * Append a record and return the offset of its payload.
+     */
+    int append(byte type, byte[] payload) throws IOException {
+        int recordBytes = HEADER_BYTES + payload.length;
+        ensureCapacity(recordBytes);
+
+        int position = writePosition;
+        buffer.putInt(position + 4, checksum(type, payload));
+        buffer.put(position + 8, type);
+        buffer.put(position + HEADER_BYTES, payload);
+        buffer.putInt(position, payload.length);
+        if (syncWrites) {
+            buffer.force(position, recordBytes);
+        }
+
+        writePosition += recordBytes;
+        return position + HEADER_BYTES;
+    }
+
+    /**
+     * Read a payload previously returned by {@link #append} or the recovery scan.
+     */
+    byte[] read(int payloadOffset, int length) {
+        byte[] payload = new byte[length];
+        buffer.get(payloadOffset, payload);
+        return payload;
+    }
+
+    int size() {
+        return writePosition;
+    }
+
+    /**
+     * Replace the log with a new one containing only the given PUT payloads,
+     * returning their new offsets in the same order.
+     *
+     * The new log is written to a side file, forced to disk and atomically
+     * renamed over the old one, so a crash leaves either the old or new log.
+     */
+    int[] compact(List<byte[]> payloads) throws IOException {
+        long compactedBytes = 0;
+        for (byte[] payload : payloads) {
+            compactedBytes += HEADER_BYTES + payload.length;
+        }
+        if (compactedBytes > MAX_BYTES) {
+            throw new IOException("Live data in " + path + " (" + compactedBytes + " bytes) exceeds the "
+                    + MAX_BYTES + " byte log limit");
+        }
+
+        Path compactPath = compactPath(path);
+        int[] offsets = new int[payloads.size()];
+
+        try (FileChannel out = FileChannel.open(compactPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int position = 0;
+            for (int i = 0; i < payloads.size(); i++) {
+                byte[] payload = payloads.get(i);
+                ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+                record.putInt(payload.length).putInt(checksum(PUT, payload)).put(PUT).put(payload).flip();
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+                offsets[i] = position + HEADER_BYTES;
+                position += HEADER_BYTES + payload.length;
+            }
+            out.force(true);
+        }
+
+        buffer.force();
+        channel.close();
+        Files.move(compactPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+
+        int newSize = (int) Files.size(path);
+        map(Math.max(initialCapacity, newSize));
+        writePosition = newSize;
+        return offsets;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void recover(RecordVisitor visitor) {
+        int position = 0;
+        int limit = buffer.capacity();
+        boolean corrupt = false;
+
+        while (position + HEADER_BYTES <= limit) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || (long) position + HEADER_BYTES + length > limit) {
+                corrupt = true;
+                break;
+            }
+
+            byte type = buffer.get(position + 8);
+            byte[] payload = read(position + HEADER_BYTES, length);
+            if (buffer.getInt(position + 4) != checksum(type, payload)) {
+                corrupt = true;
+                break;
+            }
+
+            visitor.visit(type, position + HEADER_BYTES, payload);
+            position += HEADER_BYTES + length;
+        }
+
+        if (corrupt) {
+            log.warn("Truncating torn or corrupt tail of {} at offset {}", path, position);
+            // Zero the tail so stale records behind the tear can never be replayed later
+            for (int i = position; i < limit; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+        writePosition = position;
+    }
+
+    private void ensureCapacity(int recordBytes) throws IOException {
+        long required = (long) writePosition + recordBytes;
+        if (required <= buffer.capacity()) {
+            return;
+        }
+
+        long capacity = buffer.capacity();
+        while (capacity < required) {
+            capacity *= 2;
+        }
+        if (capacity > MAX_BYTES) {
+            if (required > MAX_BYTES) {
+                throw new IOException("Log " + path + " exceeds the " + MAX_BYTES
+                        + " byte limit; compaction cannot keep up");
+            }
+            capacity = MAX_BYTES;
+        }
+        buffer.force();
+        map(capacity);
+    }
+
+    private void map(long capacity) throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+        // Mapping past the end of the file extends it with zeros
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the rename itself is still atomic
+            log.debug("Could not sync directory of {}", path, e);
+        }
+    }
+
+    private static int checksum(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static Path compactPath(Path path) {
+        return path.resolveSibling(path.getFileName() + COMPACT_SUFFIX);
+    }
+}
@@ -0,0 +1,105 @@
+package com.devhub.repository.embedded;
+
+import com.google.cloud.Timestamp;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comparison of stored field values with Firestore's cross-type ordering:
+ * null &lt; booleans &lt; numbers &lt; timestamps &lt; strings.
+ *
+ * Documents are held as JSON maps, so timestamps arrive as {seconds, nanos}
+ * maps and numbers as whatever width Jackson chose; both are normalized first.
+ */
+final class Values {
+
+    /**
+     * Sort value of a field stored as an explicit null.
+     */
+    enum Null { VALUE }
+
+    private Values() {
+    }
+
+    /**
+     * The value a document sorts by on the given field: {@link Null#VALUE} for
+     * an explicit null, or null if the field is missing or has no ordering.
+     * As in Firestore, orderBy keeps explicit nulls (first) and skips missing fields.
+     */
+    @SuppressWarnings("rawtypes")
+    static Comparable orderValue(Map<String, Object> doc, String field) {
+        Object value = doc.get(field);
+        if (value == null) {
+            return doc.containsKey(field) ? Null.VALUE : null;
+        }
+        return normalize(value);
+    }
+
+    /**
+     * Normalize a JSON value into a comparable form, or null if it has no ordering (lists, maps).
+     */
+    @SuppressWarnings("rawtypes")
+    static Comparable normalize(Object value) {
+        if (value instanceof Boolean || value instanceof String || value instanceof Timestamp) {
+            return (Comparable) value;
+        }
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString());
+        }
+        if (value instanceof Map<?, ?> map && map.get("seconds") instanceof Number seconds) {
+            Object nanos = map.get("nanos");
+            return Timestamp.ofTimeSecondsAndNanos(seconds.longValue(),
+                    nanos instanceof Number n ? n.intValue() : 0);
+        }
+        return null;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static int compare(Comparable a, Comparable b) {
+        int rankA = rank(a);
+        int rankB = rank(b);
+        if (rankA != rankB || rankA == 0) {
+            return Integer.compare(rankA, rankB);
+        }
+        return a.compareTo(b);
+    }
+
+    /**
+     * Firestore equality: same type and equal value (1 == 1.0).
+     */
+    static boolean matchesEqual(Object stored, Object expected) {
+        Comparable a = normalize(stored);
+        Comparable b = normalize(expected);
+        return a != null && b != null && compare(a, b) == 0;
+    }
+
+    static boolean matchesArrayContains(Object stored, Object expected) {
+        if (!(stored instanceof List<?> list)) {
+            return false;
+        }
+        for (Object element : list) {
+            if (matchesEqual(element, expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int rank(Object value) {
+        if (value == null || value == Null.VALUE) {
+            return 0;
+        }
+        if (value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof BigDecimal) {
+            return 2;
+        }
+        if (value instanceof Timestamp) {
+            return 3;
+        }
+        return 4;
+    }
+}
@@ -0,0 +1,320 @@
+package com.devhub.service;
+
+import com.devhub.model.ChangeEvent;
+import com.devhub.model.Identifiable;
+import com.devhub.repository.ChangeListener;
+import com.devhub.repository.DocumentRepository;
+import com.devhub.repository.EntityChange;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Fans out document changes from a single repository watch on one
+ * collection to any number of SSE subscribers.
+ *
+ * Event IDs have the form "epoch-sequence". The epoch changes whenever the
+ * watch (re-)starts, so a Last-Event-ID from before a restart is
+ * recognized as stale. Recent events are kept in a bounded replay buffer;
+ * a reconnecting client whose last ID is still covered gets the missed events,
+ * anything else gets a single "reset" event telling it to refetch.
+ *
+ * Listener callbacks and replays run on the one executor thread, which
+ * serializes each event once and only queues it per subscriber; the
+ * blocking sends run on the senders pool, one subscriber at a time. A
+ * subscriber whose queue fills up (a slow or stuck client) is disconnected,
+ * and on reconnecting resumes from its Last-Event-ID like any other client,
+ * so it never holds up the others.
+ */
+@Slf4j
+class ChangeFeed<T extends Identifiable> implements ChangeListener<T> {
+
+    static final String RESET = "reset";
+
+    private static final Frame HEARTBEAT = new Frame(null, null, "heartbeat");
+
+    private final String collection;
+    private final DocumentRepository<T> repository;
+    private final Executor executor;
+    private final Executor senders;
+    private final ObjectMapper objectMapper;
+    private final int replayBufferSize;
+    private final int queueCapacity;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Confined to the executor thread
+    private final Deque<BufferedEvent> recent = new ArrayDeque<>();
+    private long epoch;
+    private long sequence;
+    private boolean started;
+
+    // Guarded by this
+    private DocumentRepository.Watch watch;
+    private boolean closed;
+
+    ChangeFeed(String collection, DocumentRepository<T> repository, Executor executor, Executor senders,
+               ObjectMapper objectMapper, int replayBufferSize, int queueCapacity) {
+        this.collection = collection;
+        this.repository = repository;
+        this.executor = executor;
+        this.senders = senders;
+        this.objectMapper = objectMapper;
+        this.replayBufferSize = replayBufferSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Register a subscriber, replaying events after lastEventId when possible.
+     */
+    void subscribe(SseEmitter emitter, String lastEventId) {
+        ensureListening();
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::disconnected);
+        emitter.onTimeout(subscriber::disconnected);
+        emitter.onError(e -> subscriber.disconnected());
+
+        executor.execute(() -> {
+            if (lastEventId != null) {
+                List<BufferedEvent> missed = eventsAfter(lastEventId);
+                if (missed == null) {
+                    log.debug("Cannot resume {} feed from {}; sending reset", collection, lastEventId);
+                    subscriber.offer(resetEvent().frame(), false);
+                } else {
+                    // The replay may exceed the queue capacity; it is bounded by the replay buffer instead
+                    for (BufferedEvent event : missed) {
+                        subscriber.offer(event.frame(), false);
+                    }
+                }
+            }
+            if (!subscriber.closed) {
+                subscribers.add(subscriber);
+            }
+        });
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Send a comment line to every subscriber to keep idle connections open.
+     */
+    void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(HEARTBEAT, true);
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        if (watch != null) {
+            watch.cancel();
+            watch = null;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.closed = true;
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * The watch started or restarted: begin a new epoch. After a restart,
+     * changes may have been missed, so tell current subscribers to refetch.
+     */
+    @Override
+    public void onStart() {
+        boolean restarted = started;
+        started = true;
+        epoch = System.currentTimeMillis();
+        sequence = 0;
+        recent.clear();
+        if (restarted) {
+            broadcast(resetEvent());
+        }
+    }
+
+    @Override
+    public void onChanges(List<EntityChange<T>> changes) {
+        for (EntityChange<T> change : changes) {
+            String type = change.type().name().toLowerCase();
+            BufferedEvent event = event(++sequence, type, new ChangeEvent(type, change.id(), change.entity()));
+            if (event == null) {
+                continue;
+            }
+            recent.addLast(event);
+            if (recent.size() > replayBufferSize) {
+                recent.removeFirst();
+            }
+            broadcast(event);
+        }
+    }
+
+    private synchronized void ensureListening() {
+        if (watch != null || closed) {
+            return;
+        }
+        log.info("Starting change feed for collection: {}", collection);
+        watch = repository.watch(executor, this);
+    }
+
+    /**
+     * Events after the given ID, or null if it is from another epoch or already evicted.
+     */
+    private List<BufferedEvent> eventsAfter(String lastEventId) {
+        String[] parts = lastEventId.split("-", 2);
+        long lastEpoch;
+        long lastSequence;
+        try {
+            lastEpoch = Long.parseLong(parts[0]);
+            lastSequence = parts.length == 2 ? Long.parseLong(parts[1]) : -1;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        long oldest = recent.isEmpty() ? sequence + 1 : recent.getFirst().sequence();
+        if (!started || lastEpoch != epoch || lastSequence < oldest - 1 || lastSequence > sequence) {
+            return null;
+        }
+
+        List<BufferedEvent> missed = new ArrayList<>();
+        for (BufferedEvent event : recent) {
+            if (event.sequence() > lastSequence) {
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+
+    private BufferedEvent resetEvent() {
+        return event(sequence, RESET, new ChangeEvent(RESET, null, null));
+    }
+
+    /**
+     * Serialize an event once for all subscribers; null if it cannot be serialized.
+     */
+    private BufferedEvent event(long sequence, String type, ChangeEvent payload) {
+        try {
+            Frame frame = new Frame(epoch + "-" + sequence, type, objectMapper.writeValueAsString(payload));
+            return new BufferedEvent(sequence, frame);
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing {} change event for document {}", collection, payload.getId(), e);
+            return null;
+        }
+    }
+
+    private void broadcast(BufferedEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event.frame(), true);
+        }
+    }
+
+    private record BufferedEvent(long sequence, Frame frame) {
+    }
+
+    /**
+     * One SSE message, already serialized; a comment if name is null.
+     */
+    private record Frame(String id, String name, String data) {
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (name == null) {
+                return SseEmitter.event().comment(data);
+            }
+            return SseEmitter.event().id(id).name(name).data(data);
+        }
+    }
+
+    /**
+     * A connected client and the frames queued for it. At most one sender
+     * task drains the queue at a time, so frames go out in order.
+     */
+    private final class Subscriber {
+
+        final SseEmitter emitter;
+
+        // Guarded by this
+        private final Deque<Frame> queue = new ArrayDeque<>();
+        private boolean draining;
+
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queue a frame for sending. When bounded and the queue is full, the
+         * subscriber is disconnected instead; it resumes with its Last-Event-ID.
+         */
+        void offer(Frame frame, boolean bounded) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (bounded && queue.size() >= queueCapacity) {
+                    log.debug("Disconnecting slow {} feed subscriber ({} events queued)", collection, queue.size());
+                    closed = true;
+                    subscribers.remove(this);
+                    queue.clear();
+                } else {
+                    queue.addLast(frame);
+                }
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        /**
+         * Runs on the senders pool: send queued frames until the queue is empty,
+         * or complete the emitter once the subscriber has been disconnected.
+         */
+        private void drain() {
+            while (true) {
+                Frame frame;
+                synchronized (this) {
+                    frame = closed ? null : queue.pollFirst();
+                    if (frame == null) {
+                        draining = false;
+                        if (!closed) {
+                            return;
+                        }
+                    }
+                }
+                if (frame == null) {
+                    emitter.complete();
+                    return;
+                }
+                try {
+                    emitter.send(frame.toEvent());
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; Spring completes the emitter
+                    disconnected();
+                    return;
+                }
+            }
+        }
+
+        void disconnected() {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+            }
+            subscribers.remove(this);
+        }
+    }
+}
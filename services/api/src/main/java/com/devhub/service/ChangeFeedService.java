@@ -0,0 +1,127 @@
+package com.devhub.service;
+
+import com.devhub.model.CodeSnippet;
+import com.devhub.model.PortfolioLink;
+import com.devhub.repository.DocumentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service for streaming snippet and portfolio changes to clients as Server-Sent Events.
+ * Each collection has one shared repository watch per pod, started on
+ * the first subscription, regardless of how many clients are connected.
+ * Events are sent to clients from a separate pool of sender threads, so a
+ * slow client never delays the watch callbacks.
+ */
+@Slf4j
+@Service
+public class ChangeFeedService {
+
+    @Autowired
+    private DocumentRepository<CodeSnippet> snippetRepository;
+
+    @Autowired
+    private DocumentRepository<PortfolioLink> portfolioRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${devhub.changes.replay-buffer-size:1000}")
+    private int replayBufferSize;
+
+    @Value("${devhub.changes.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${devhub.changes.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${devhub.changes.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${devhub.changes.subscriber-queue-size:256}")
+    private int subscriberQueueSize;
+
+    @Value("${devhub.changes.sender-threads:8}")
+    private int senderThreads;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ExecutorService senders;
+
+    private ChangeFeed<CodeSnippet> snippetFeed;
+
+    private ChangeFeed<PortfolioLink> portfolioFeed;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger senderCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread thread = new Thread(r, "change-feed-sender-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        snippetFeed = new ChangeFeed<>("snippets", snippetRepository, executor, senders, objectMapper,
+                replayBufferSize, subscriberQueueSize);
+        portfolioFeed = new ChangeFeed<>("portfolio", portfolioRepository, executor, senders, objectMapper,
+                replayBufferSize, subscriberQueueSize);
+
+        executor.scheduleAtFixedRate(() -> {
+            snippetFeed.heartbeat();
+            portfolioFeed.heartbeat();
+        }, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        snippetFeed.close();
+        portfolioFeed.close();
+        executor.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Subscribe to snippet changes, resuming after lastEventId when possible.
+     *
+     * @throws IllegalStateException if the pod already has the maximum number of subscribers
+     */
+    public SseEmitter subscribeToSnippets(String lastEventId) {
+        return subscribe(snippetFeed, lastEventId);
+    }
+
+    /**
+     * Subscribe to portfolio link changes, resuming after lastEventId when possible.
+     *
+     * @throws IllegalStateException if the pod already has the maximum number of subscribers
+     */
+    public SseEmitter subscribeToPortfolio(String lastEventId) {
+        return subscribe(portfolioFeed, lastEventId);
+    }
+
+    private SseEmitter subscribe(ChangeFeed<?> feed, String lastEventId) {
+        int current = snippetFeed.subscriberCount() + portfolioFeed.subscriberCount();
+        if (current >= maxSubscribers) {
+            throw new IllegalStateException("Change feed subscriber limit reached: " + maxSubscribers);
+        }
+
+        log.debug("New change feed subscriber (last event ID: {})", lastEventId);
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        feed.subscribe(emitter, lastEventId);
+        return emitter;
+    }
+}
@@ -0,0 +1,61 @@
+package com.devhub.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates partial-update (PATCH) payloads against the fields a document allows.
+ */
+final class FieldMasks {
+
+    private FieldMasks() {
+    }
+
+    /**
+     * Check that every field is patchable, has the right type and that required
+     * fields are not blanked, returning a mutable copy ready for update().
+     *
+     * @param allowed patchable field names and their expected types
+     * @param required fields that may not be set to null or blank
+     * @throws IllegalArgumentException describing the first invalid field
+     */
+    static Map<String, Object> validate(Map<String, Object> fields, Map<String, Class<?>> allowed, Set<String> required) {
+        if (fields == null || fields.isEmpty()) {
+            throw new IllegalArgumentException("No fields to update");
+        }
+
+        Map<String, Object> updates = new HashMap<>();
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
+            String field = entry.getKey();
+            Object value = entry.getValue();
+            Class<?> type = allowed.get(field);
+            if (type == null) {
+                throw new IllegalArgumentException("Field cannot be updated: " + field);
+            }
+            if (value == null || (value instanceof String s && s.isBlank())) {
+                if (required.contains(field)) {
+                    throw new IllegalArgumentException("Field is required: " + field);
+                }
+                updates.put(field, null);
+                continue;
+            }
+            updates.put(field, coerce(field, value, type));
+        }
+        return updates;
+    }
+
+    private static Object coerce(String field, Object value, Class<?> type) {
+        if (type == Integer.class && value instanceof Number number && number.doubleValue() == number.intValue()) {
+            return number.intValue();
+        }
+        if (type == List.class && value instanceof List<?> list && list.stream().allMatch(String.class::isInstance)) {
+            return list;
+        }
+        if (type != Integer.class && type != List.class && type.isInstance(value)) {
+            return value;
+        }
+        throw new IllegalArgumentException("Invalid value for field " + field + ": expected " + type.getSimpleName());
+    }
+}
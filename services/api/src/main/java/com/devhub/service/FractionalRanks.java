@@ -0,0 +1,118 @@
+package com.devhub.service;
+
+/**
+ * Lexicographic fractional rank keys for ordering documents.
+ *
+ * A key is a base-62 fraction: "V" is 0.5, "F" about 0.25, "0V" about 0.008.
+ * Digits are in ASCII order, so plain string comparison (Java's and
+ * Firestore's) orders keys by value. There is always a key between any two
+ * others, so moving an item only rewrites that item's key. Keys never end in
+ * '0', which guarantees there is room before every key.
+ *
+ * Integer orders map onto the same key space via {@link #fromOrder}, so keys
+ * derived from legacy orders and keys produced by moves compare correctly.
+ * Repeated inserts at the same spot make keys grow by about one character
+ * every few moves; the rebalancer resets them to fromOrder(position).
+ */
+final class FractionalRanks {
+
+    static final String DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    private static final int BASE = DIGITS.length();
+
+    // Legacy integer orders map to ORDER_WIDTH digits plus a trailing midpoint digit
+    private static final int ORDER_WIDTH = 4;
+    private static final long MAX_ORDER = pow(BASE, ORDER_WIDTH) - 1;
+
+    private FractionalRanks() {
+    }
+
+    /**
+     * A key strictly between lower and upper.
+     *
+     * @param lower key to sort after, or null for the start
+     * @param upper key to sort before, or null for the end
+     * @throws IllegalArgumentException if lower is not before upper or a key is malformed
+     */
+    static String between(String lower, String upper) {
+        if ((lower != null && !isValid(lower)) || (upper != null && !isValid(upper))) {
+            throw new IllegalArgumentException("Malformed rank key");
+        }
+        String a = lower != null ? lower : "";
+        if (upper != null && a.compareTo(upper) >= 0) {
+            throw new IllegalArgumentException("Rank " + lower + " is not before " + upper);
+        }
+        return midpoint(a, upper);
+    }
+
+    /**
+     * Key for an integer order, sorting the same way integers do (orders below
+     * 0 or above 62^4 - 1 are clamped). Consecutive orders leave room for
+     * dozens of moves between them before keys grow past six characters.
+     */
+    static String fromOrder(Integer order) {
+        long value = order == null ? 0 : Math.max(0, Math.min(MAX_ORDER, order.longValue()));
+        return encode(value, ORDER_WIDTH) + DIGITS.charAt(BASE / 2);
+    }
+
+    static boolean isValid(String key) {
+        if (key == null || key.isEmpty() || key.charAt(key.length() - 1) == '0') {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (DIGITS.indexOf(key.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Midpoint of a &lt; b, where a may be empty (zero) and b null (one).
+     */
+    private static String midpoint(String a, String b) {
+        if (b != null) {
+            // Keep the common prefix, treating a as padded with zeros
+            int n = 0;
+            while (n < b.length() && digitAt(a, n) == b.charAt(n)) {
+                n++;
+            }
+            if (n > 0) {
+                return b.substring(0, n) + midpoint(a.length() > n ? a.substring(n) : "", b.substring(n));
+            }
+        }
+
+        int lowDigit = a.isEmpty() ? 0 : DIGITS.indexOf(a.charAt(0));
+        int highDigit = b != null ? DIGITS.indexOf(b.charAt(0)) : BASE;
+        if (highDigit - lowDigit > 1) {
+            return String.valueOf(DIGITS.charAt((lowDigit + highDigit) / 2));
+        }
+
+        // Adjacent first digits: b's first digit alone fits if b continues past it
+        if (b != null && b.length() > 1) {
+            return b.substring(0, 1);
+        }
+        return DIGITS.charAt(lowDigit) + midpoint(a.isEmpty() ? "" : a.substring(1), null);
+    }
+
+    private static char digitAt(String key, int index) {
+        return index < key.length() ? key.charAt(index) : DIGITS.charAt(0);
+    }
+
+    private static String encode(long value, int width) {
+        char[] digits = new char[width];
+        for (int i = width - 1; i >= 0; i--) {
+            digits[i] = DIGITS.charAt((int) (value % BASE));
+            value /= BASE;
+        }
+        return new String(digits);
+    }
+
+    private static long pow(long base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,65 @@
+package com.devhub.service;
+
+import com.devhub.model.Lease;
+import com.devhub.model.Versioned;
+import com.devhub.repository.DocumentNotFoundException;
+import com.devhub.repository.DocumentRepository;
+import com.devhub.repository.PreconditionFailedException;
+import com.google.cloud.Timestamp;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Leases that keep a background job to one pod at a time.
+ *
+ * A lease is one document per job holding the pod that owns it and when it
+ * expires. Taking or renewing it is a conditional write on the document's
+ * update time, so of two pods racing for it only one succeeds. A pod that
+ * dies keeps the lease until it expires, after which any pod can take it.
+ */
+@Slf4j
+@Service
+public class LeaseService {
+
+    // HOSTNAME is the pod name on Kubernetes; the suffix tells restarts of the same pod apart
+    private final String holder = System.getenv().getOrDefault("HOSTNAME", "local")
+            + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    @Autowired
+    private DocumentRepository<Lease> leaseRepository;
+
+    /**
+     * Take the named lease for ttl, or renew it if this pod already holds it.
+     *
+     * @return false if another pod holds an unexpired lease or took it first
+     */
+    public boolean tryAcquire(String name, Duration ttl) throws ExecutionException, InterruptedException {
+        Timestamp now = Timestamp.now();
+        Timestamp expiresAt = Timestamp.ofTimeSecondsAndNanos(now.getSeconds() + ttl.getSeconds(), now.getNanos());
+
+        Versioned<Lease> current = leaseRepository.findById(name);
+        try {
+            if (current == null) {
+                leaseRepository.create(name, new Lease(null, holder, expiresAt));
+            } else {
+                Lease lease = current.getValue();
+                boolean expired = lease.getExpiresAt() == null || lease.getExpiresAt().compareTo(now) <= 0;
+                if (!holder.equals(lease.getHolder()) && !expired) {
+                    return false;
+                }
+                leaseRepository.update(name, Map.of("holder", holder, "expiresAt", expiresAt),
+                        current.getUpdateTime());
+            }
+        } catch (PreconditionFailedException | DocumentNotFoundException e) {
+            log.debug("Lost the race for lease {}", name);
+            return false;
+        }
+        return true;
+    }
+}
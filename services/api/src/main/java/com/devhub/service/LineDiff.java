@@ -0,0 +1,170 @@
+package com.devhub.service;
+
+import com.devhub.model.LineEdit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Line-level diff and patch for snippet code.
+ *
+ * Lines are split on '\n' only and joined back the same way, so any text
+ * (trailing newline, '\r\n' endings) round-trips exactly. The diff is Myers'
+ * shortest edit script after trimming the common prefix and suffix; past
+ * MAX_EDIT_DISTANCE changed lines it gives up on minimality and replaces
+ * the whole differing middle in one hunk.
+ */
+final class LineDiff {
+
+    // Bounds the diff's time and memory at O(D^2) for D changed lines
+    private static final int MAX_EDIT_DISTANCE = 2000;
+
+    private LineDiff() {
+    }
+
+    static List<String> split(String text) {
+        return text == null ? List.of() : Arrays.asList(text.split("\n", -1));
+    }
+
+    static String join(List<String> lines) {
+        return String.join("\n", lines);
+    }
+
+    /**
+     * Edits that turn before into after, in increasing line order.
+     */
+    static List<LineEdit> diff(List<String> before, List<String> after) {
+        int prefix = 0;
+        while (prefix < before.size() && prefix < after.size() && before.get(prefix).equals(after.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < before.size() - prefix && suffix < after.size() - prefix
+                && before.get(before.size() - 1 - suffix).equals(after.get(after.size() - 1 - suffix))) {
+            suffix++;
+        }
+        List<String> a = before.subList(prefix, before.size() - suffix);
+        List<String> b = after.subList(prefix, after.size() - suffix);
+        if (a.isEmpty() && b.isEmpty()) {
+            return List.of();
+        }
+
+        char[] script = shortestEditScript(a, b);
+        if (script == null) {
+            return List.of(new LineEdit(prefix, a.size(), new ArrayList<>(b)));
+        }
+
+        // Group runs of removals and insertions into hunks
+        List<LineEdit> edits = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        int s = 0;
+        while (s < script.length) {
+            if (script[s] == '=') {
+                i++;
+                j++;
+                s++;
+                continue;
+            }
+            LineEdit edit = new LineEdit(prefix + i, 0, new ArrayList<>());
+            while (s < script.length && script[s] != '=') {
+                if (script[s] == '-') {
+                    edit.setRemoveCount(edit.getRemoveCount() + 1);
+                    i++;
+                } else {
+                    edit.getInsert().add(b.get(j));
+                    j++;
+                }
+                s++;
+            }
+            edits.add(edit);
+        }
+        return edits;
+    }
+
+    /**
+     * Apply edits produced by {@link #diff} to before.
+     *
+     * @throws IllegalStateException if the edits do not fit before
+     */
+    static List<String> apply(List<String> before, List<LineEdit> edits) {
+        List<String> after = new ArrayList<>(before.size());
+        int i = 0;
+        for (LineEdit edit : edits) {
+            int at = edit.getAt();
+            int end = at + edit.getRemoveCount();
+            if (at < i || end > before.size()) {
+                throw new IllegalStateException("Edit at line " + at + " does not fit " + before.size() + " lines");
+            }
+            after.addAll(before.subList(i, at));
+            if (edit.getInsert() != null) {
+                after.addAll(edit.getInsert());
+            }
+            i = end;
+        }
+        after.addAll(before.subList(i, before.size()));
+        return after;
+    }
+
+    /**
+     * Myers' O(ND) algorithm: '=' keeps a line, '-' removes one from a and
+     * '+' inserts one from b. Null if more than MAX_EDIT_DISTANCE edits are needed.
+     */
+    private static char[] shortestEditScript(List<String> a, List<String> b) {
+        int n = a.size();
+        int m = b.size();
+        int max = Math.min(n + m, MAX_EDIT_DISTANCE);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+
+        // trace.get(d) holds v[-d..d] after round d
+        List<int[]> trace = new ArrayList<>();
+        int distance = -1;
+        for (int d = 0; d <= max && distance < 0; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])
+                        ? v[offset + k + 1]
+                        : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a.get(x).equals(b.get(y))) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    distance = d;
+                }
+            }
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+        }
+        if (distance < 0) {
+            return null;
+        }
+
+        // Walk back from (n, m), emitting the script in reverse
+        char[] script = new char[(n + m + distance) / 2];
+        int s = script.length;
+        int x = n;
+        int y = m;
+        for (int d = distance; d > 0; d--) {
+            int[] previous = trace.get(d - 1);
+            int k = x - y;
+            int previousK = k == -d || (k != d && previous[k - 1 + d - 1] < previous[k + 1 + d - 1]) ? k + 1 : k - 1;
+            int previousX = previous[previousK + d - 1];
+            int previousY = previousX - previousK;
+            while (x > previousX && y > previousY) {
+                script[--s] = '=';
+                x--;
+                y--;
+            }
+            script[--s] = previousK == k + 1 ? '+' : '-';
+            x = previousX;
+            y = previousY;
+        }
+        while (s > 0) {
+            script[--s] = '=';
+        }
+        return script;
+    }
+}
@@ -0,0 +1,13 @@
+package com.devhub.service;
+
+/**
+ * Thrown when a move cannot be placed as asked: a neighbor link does not
+ * exist, or afterId does not sort before beforeId. The client's view of the
+ * list is stale and should be refetched.
+ */
+public class MoveConflictException extends RuntimeException {
+
+    public MoveConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,194 @@
+package com.devhub.service;
+
+import com.devhub.model.PortfolioLink;
+import com.devhub.model.Versioned;
+import com.devhub.repository.DocumentNotFoundException;
+import com.devhub.repository.DocumentRepository;
+import com.devhub.repository.PreconditionFailedException;
+import com.devhub.repository.QuerySpec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps portfolio ranks complete and short.
+ *
+ * Every run reads all links. Links without a rank (written before ranks
+ * existed) are given rank fromOrder(order). When a rank is longer than
+ * max-rank-length or two links share a rank, and rebalancing is enabled, all
+ * links are instead given rank fromOrder(position) and order = position, so
+ * integer orders and ranks agree again and legacy clients that only set order
+ * keep placing links where they expect. Only links whose rank or order
+ * actually changes are written.
+ *
+ * Only the pod holding the "portfolio-rebalance" lease writes. Each link is
+ * written on the condition that its update time is still the one read, so a
+ * move or edit that lands during a run is never overwritten: that link is
+ * skipped and the next run looks at it again.
+ *
+ * Every pod also records whether its last run found every link ranked;
+ * until then PortfolioService does not stream by rank, which would leave
+ * unranked links out.
+ */
+@Slf4j
+@Service
+public class PortfolioRankRebalancer {
+
+    static final String LEASE = "portfolio-rebalance";
+
+    private static final QuerySpec ALL_LINKS = QuerySpec.orderBy("order", QuerySpec.Direction.ASCENDING);
+
+    @Autowired
+    private DocumentRepository<PortfolioLink> portfolioRepository;
+
+    @Autowired
+    private LeaseService leaseService;
+
+    @Value("${devhub.portfolio.rebalance.enabled:true}")
+    private boolean enabled;
+
+    @Value("${devhub.portfolio.rebalance.max-rank-length:8}")
+    private int maxRankLength;
+
+    @Value("${devhub.portfolio.rebalance.initial-delay-seconds:30}")
+    private long initialDelaySeconds;
+
+    @Value("${devhub.portfolio.rebalance.interval-seconds:300}")
+    private long intervalSeconds;
+
+    private volatile boolean allLinksRanked;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "portfolio-rebalancer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            log.info("Portfolio rank rebalancing disabled; only missing ranks will be filled in");
+        }
+        executor.scheduleWithFixedDelay(this::rebalanceQuietly, initialDelaySeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Whether the last run on this pod found, or left, every link with a rank.
+     */
+    boolean allLinksRanked() {
+        return allLinksRanked;
+    }
+
+    /**
+     * Fill in missing ranks, and rebalance if needed, unless another pod holds the lease.
+     *
+     * @return the number of links rewritten
+     */
+    public int rebalance() throws ExecutionException, InterruptedException {
+        List<PortfolioLink> links = new ArrayList<>(portfolioRepository.query(ALL_LINKS));
+        links.sort(PortfolioService.DISPLAY_ORDER);
+        boolean unranked = links.stream().anyMatch(link -> link.getRank() == null);
+        allLinksRanked = !unranked;
+
+        boolean rebalance = enabled && needsRebalance(links);
+        if (!unranked && !rebalance) {
+            return 0;
+        }
+        if (!leaseService.tryAcquire(LEASE, Duration.ofSeconds(2 * intervalSeconds))) {
+            log.debug("Another pod holds the {} lease", LEASE);
+            return 0;
+        }
+
+        int rewritten = 0;
+        int skipped = 0;
+        for (int position = 0; position < links.size(); position++) {
+            PortfolioLink link = links.get(position);
+            Map<String, Object> fields;
+            if (rebalance) {
+                String rank = FractionalRanks.fromOrder(position);
+                if (rank.equals(link.getRank()) && Integer.valueOf(position).equals(link.getOrder())) {
+                    continue;
+                }
+                fields = Map.of("rank", rank, "order", position);
+            } else if (link.getRank() == null) {
+                fields = Map.of("rank", FractionalRanks.fromOrder(link.getOrder()));
+            } else {
+                continue;
+            }
+
+            if (updateIfUnchanged(link, fields)) {
+                rewritten++;
+            } else {
+                skipped++;
+            }
+        }
+
+        if (skipped == 0) {
+            allLinksRanked = true;
+        }
+        log.info("{} portfolio ranks: rewrote {} of {} links, skipped {} changed since read",
+                rebalance ? "Rebalanced" : "Filled in", rewritten, links.size(), skipped);
+        return rewritten;
+    }
+
+    /**
+     * Write the fields only if the link still has the rank and order it was
+     * read with, on the condition that its update time does not change meanwhile.
+     */
+    private boolean updateIfUnchanged(PortfolioLink read, Map<String, Object> fields)
+            throws ExecutionException, InterruptedException {
+        Versioned<PortfolioLink> current = portfolioRepository.findById(read.getId());
+        if (current == null
+                || !Objects.equals(current.getValue().getRank(), read.getRank())
+                || !Objects.equals(current.getValue().getOrder(), read.getOrder())) {
+            return false;
+        }
+        try {
+            portfolioRepository.update(read.getId(), fields, current.getUpdateTime());
+            return true;
+        } catch (PreconditionFailedException | DocumentNotFoundException e) {
+            return false;
+        }
+    }
+
+    private boolean needsRebalance(List<PortfolioLink> links) {
+        Set<String> seen = new HashSet<>();
+        for (PortfolioLink link : links) {
+            String rank = link.getRank();
+            if (rank != null && (rank.length() > maxRankLength || !seen.add(rank))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rebalanceQuietly() {
+        try {
+            rebalance();
+        } catch (ExecutionException | RuntimeException e) {
+            log.error("Error rebalancing portfolio ranks", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
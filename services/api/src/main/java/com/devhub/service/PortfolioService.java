@@ -1,46 +1,74 @@
 package com.devhub.service;
 
+import com.devhub.model.BatchGetResult;
 import com.devhub.model.PortfolioLink;
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.*;
+import com.devhub.model.Versioned;
+import com.devhub.repository.DocumentRepository;
+import com.devhub.repository.EntityStream;
+import com.devhub.repository.QuerySpec;
+import com.google.cloud.Timestamp;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 /**
- * Service for managing portfolio links in Firestore.
+ * Service for managing portfolio links.
  */
 @Slf4j
 @Service
 public class PortfolioService {
 
-    private static final String COLLECTION_NAME = "portfolio";
+    private static final Map<String, Class<?>> PATCHABLE_FIELDS = Map.of(
+            "title", String.class,
+            "url", String.class,
+            "order", Integer.class,
+            "rank", String.class,
+            "category", String.class,
+            "icon", String.class,
+            "description", String.class);
+
+    private static final Set<String> REQUIRED_FIELDS = Set.of("title", "url", "order");
+
+    private static final QuerySpec LEGACY_ORDER = QuerySpec.orderBy("order", QuerySpec.Direction.ASCENDING);
+
+    private static final QuerySpec RANK_ORDER = QuerySpec.orderBy("rank", QuerySpec.Direction.ASCENDING);
+
+    /**
+     * Display order: by rank, falling back to the integer order for links
+     * written before ranks existed, then by ID for a stable result.
+     */
+    static final Comparator<PortfolioLink> DISPLAY_ORDER =
+            Comparator.comparing(PortfolioService::effectiveRank).thenComparing(PortfolioLink::getId);
+
+    @Autowired
+    private DocumentRepository<PortfolioLink> portfolioRepository;
 
     @Autowired
-    private Firestore firestore;
+    private PortfolioRankRebalancer rankRebalancer;
+
+    @Value("${devhub.batch-get.max-ids:300}")
+    private int maxBatchGetIds;
 
     /**
      * Get all portfolio links ordered by display order.
+     * Every link has an order, so querying on it returns links with and
+     * without ranks alike; the result is then sorted by rank.
      */
     public List<PortfolioLink> getAllLinks() throws ExecutionException, InterruptedException {
         log.info("Fetching all portfolio links");
-        List<PortfolioLink> links = new ArrayList<>();
-
-        ApiFuture<QuerySnapshot> query = firestore.collection(COLLECTION_NAME)
-                .orderBy("order", Query.Direction.ASCENDING)
-                .get();
-
-        for (DocumentSnapshot doc : query.get().getDocuments()) {
-            PortfolioLink link = doc.toObject(PortfolioLink.class);
-            if (link != null) {
-                link.setId(doc.getId());
-                links.add(link);
-            }
-        }
+        List<PortfolioLink> links = new ArrayList<>(portfolioRepository.query(LEGACY_ORDER));
+        links.sort(DISPLAY_ORDER);
 
         log.info("Retrieved {} portfolio links", links.size());
         return links;
@@ -51,70 +79,246 @@ public class PortfolioService {
      */
     public List<PortfolioLink> getLinksByCategory(String category) throws ExecutionException, InterruptedException {
         log.info("Fetching portfolio links for category: {}", category);
-        List<PortfolioLink> links = new ArrayList<>();
-
-        ApiFuture<QuerySnapshot> query = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("category", category)
-                .orderBy("order", Query.Direction.ASCENDING)
-                .get();
-
-        for (DocumentSnapshot doc : query.get().getDocuments()) {
-            PortfolioLink link = doc.toObject(PortfolioLink.class);
-            if (link != null) {
-                link.setId(doc.getId());
-                links.add(link);
-            }
-        }
+        List<PortfolioLink> links = new ArrayList<>(portfolioRepository.query(LEGACY_ORDER.whereEqualTo("category", category)));
+        links.sort(DISPLAY_ORDER);
 
         log.info("Retrieved {} links for category {}", links.size(), category);
         return links;
     }
 
+    /**
+     * Stream all portfolio links ordered by rank. The caller must close the stream.
+     * A rank query leaves out links without a rank, so until the rebalancer has
+     * seen every link ranked this falls back to the buffered getAllLinks result.
+     */
+    public EntityStream<PortfolioLink> streamAllLinks() throws ExecutionException, InterruptedException {
+        if (!rankRebalancer.allLinksRanked()) {
+            return streamOf(getAllLinks());
+        }
+        log.info("Streaming all portfolio links");
+        return portfolioRepository.stream(RANK_ORDER);
+    }
+
+    /**
+     * Stream portfolio links by category. The caller must close the stream.
+     */
+    public EntityStream<PortfolioLink> streamLinksByCategory(String category) throws ExecutionException, InterruptedException {
+        if (!rankRebalancer.allLinksRanked()) {
+            return streamOf(getLinksByCategory(category));
+        }
+        log.info("Streaming portfolio links for category: {}", category);
+        return portfolioRepository.stream(RANK_ORDER.whereEqualTo("category", category));
+    }
+
+    /**
+     * Get several portfolio links by ID with a single batched read.
+     * Results are in request order; IDs that do not exist come back with found=false.
+     *
+     * @throws IllegalArgumentException if no IDs or more than the configured maximum are requested
+     */
+    public List<BatchGetResult<PortfolioLink>> getLinksByIds(List<String> ids) throws ExecutionException, InterruptedException {
+        if (ids.isEmpty() || ids.size() > maxBatchGetIds) {
+            throw new IllegalArgumentException("Between 1 and " + maxBatchGetIds + " IDs must be requested");
+        }
+        log.info("Fetching {} portfolio links by ID", ids.size());
+
+        // Duplicates are read once but still answered at every position they were requested
+        Set<String> uniqueIds = new LinkedHashSet<>(ids);
+        Map<String, PortfolioLink> found = portfolioRepository.findAllById(uniqueIds);
+
+        List<BatchGetResult<PortfolioLink>> results = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            PortfolioLink link = found.get(id);
+            results.add(new BatchGetResult<>(id, link != null, link));
+        }
+
+        log.info("Found {} of {} requested portfolio links", found.size(), uniqueIds.size());
+        return results;
+    }
+
     /**
      * Get a single portfolio link by ID.
      */
     public PortfolioLink getLinkById(String id) throws ExecutionException, InterruptedException {
+        Versioned<PortfolioLink> versioned = getVersionedLinkById(id);
+        return versioned != null ? versioned.getValue() : null;
+    }
+
+    /**
+     * Get a single portfolio link by ID together with its update time (used as the ETag).
+     */
+    public Versioned<PortfolioLink> getVersionedLinkById(String id) throws ExecutionException, InterruptedException {
         log.info("Fetching portfolio link with ID: {}", id);
-        DocumentSnapshot doc = firestore.collection(COLLECTION_NAME).document(id).get().get();
+        Versioned<PortfolioLink> versioned = portfolioRepository.findById(id);
 
-        if (!doc.exists()) {
+        if (versioned == null) {
             log.warn("Portfolio link not found: {}", id);
-            return null;
-        }
-
-        PortfolioLink link = doc.toObject(PortfolioLink.class);
-        if (link != null) {
-            link.setId(doc.getId());
         }
-        return link;
+        return versioned;
     }
 
     /**
      * Create a new portfolio link.
+     *
+     * @throws IllegalArgumentException if the link has a malformed rank
      */
     public String createLink(PortfolioLink link) throws ExecutionException, InterruptedException {
         log.info("Creating new portfolio link: {}", link.getTitle());
-        ApiFuture<DocumentReference> result = firestore.collection(COLLECTION_NAME).add(link);
-        String id = result.get().getId();
+        assignRank(link);
+        String id = portfolioRepository.create(link);
         log.info("Created portfolio link with ID: {}", id);
         return id;
     }
 
     /**
      * Update an existing portfolio link.
+     * Legacy clients read a link, edit only its order and send the rest back
+     * unchanged, or leave the rank out entirely. So when the order changed and
+     * the rank did not, the link is placed by its new order, as before ranks
+     * existed; when neither changed, it keeps its stored rank.
+     *
+     * @throws IllegalArgumentException if the link has a malformed rank
      */
     public void updateLink(String id, PortfolioLink link) throws ExecutionException, InterruptedException {
         log.info("Updating portfolio link with ID: {}", id);
-        firestore.collection(COLLECTION_NAME).document(id).set(link).get();
+        Versioned<PortfolioLink> stored = portfolioRepository.findById(id);
+        if (stored != null) {
+            PortfolioLink current = stored.getValue();
+            boolean orderChanged = !Objects.equals(link.getOrder(), current.getOrder());
+            if (orderChanged && Objects.equals(link.getRank(), current.getRank())) {
+                link.setRank(null);
+            } else if (!orderChanged && link.getRank() == null) {
+                link.setRank(current.getRank());
+            }
+        }
+        assignRank(link);
+        portfolioRepository.save(id, link);
         log.info("Updated portfolio link: {}", id);
     }
 
+    /**
+     * Update only the given fields of a portfolio link, leaving the rest of the document untouched.
+     * Changing order without a rank also moves the link to that order's rank;
+     * a rank can only be cleared together with a new order, which then sets it.
+     *
+     * @param fields field name to new value; see PATCHABLE_FIELDS
+     * @param expectedUpdateTime only apply if the document's update time still matches, or null
+     * @return the document's new update time
+     * @throws IllegalArgumentException if a field is unknown, has the wrong type or blanks a required field
+     * @throws com.devhub.repository.DocumentNotFoundException if the link does not exist
+     * @throws com.devhub.repository.PreconditionFailedException if the update time no longer matches
+     */
+    public Timestamp patchLink(String id, Map<String, Object> fields, Timestamp expectedUpdateTime)
+            throws ExecutionException, InterruptedException {
+        log.info("Patching portfolio link {} fields: {}", id, fields.keySet());
+
+        Map<String, Object> updates = FieldMasks.validate(fields, PATCHABLE_FIELDS, REQUIRED_FIELDS);
+        if (updates.get("rank") != null) {
+            if (!FractionalRanks.isValid((String) updates.get("rank"))) {
+                throw new IllegalArgumentException("Malformed rank: " + updates.get("rank"));
+            }
+        } else if (updates.containsKey("order")) {
+            updates.put("rank", FractionalRanks.fromOrder((Integer) updates.get("order")));
+        } else if (updates.containsKey("rank")) {
+            // A link without a rank would drop out of rank-ordered streams
+            throw new IllegalArgumentException("rank can only be cleared together with a new order");
+        }
+
+        Timestamp updateTime = portfolioRepository.update(id, updates, expectedUpdateTime);
+        log.info("Patched portfolio link: {}", id);
+        return updateTime;
+    }
+
+    /**
+     * Move a portfolio link between two others by giving it a rank between
+     * theirs. Only the moved link is written; the neighbors are just read.
+     *
+     * @param afterId link to place it after, or null to move to the start
+     * @param beforeId link to place it before, or null to move to the end
+     * @param expectedUpdateTime only apply if the link's update time still matches, or null
+     * @return the link's new update time
+     * @throws IllegalArgumentException if neither neighbor is given or a neighbor is the link itself
+     * @throws MoveConflictException if a neighbor does not exist or afterId does not sort before beforeId
+     * @throws com.devhub.repository.DocumentNotFoundException if the link does not exist
+     * @throws com.devhub.repository.PreconditionFailedException if the update time no longer matches
+     */
+    public Timestamp moveLink(String id, String afterId, String beforeId, Timestamp expectedUpdateTime)
+            throws ExecutionException, InterruptedException {
+        if (afterId == null && beforeId == null) {
+            throw new IllegalArgumentException("afterId or beforeId is required");
+        }
+        if (id.equals(afterId) || id.equals(beforeId)) {
+            throw new IllegalArgumentException("A link cannot be moved next to itself");
+        }
+        log.info("Moving portfolio link {} after {} and before {}", id, afterId, beforeId);
+
+        List<String> neighborIds = new ArrayList<>(2);
+        if (afterId != null) {
+            neighborIds.add(afterId);
+        }
+        if (beforeId != null) {
+            neighborIds.add(beforeId);
+        }
+        Map<String, PortfolioLink> neighbors = portfolioRepository.findAllById(neighborIds);
+
+        String lower = neighborRank(neighbors, afterId);
+        String upper = neighborRank(neighbors, beforeId);
+        if (lower != null && upper != null && lower.compareTo(upper) >= 0) {
+            throw new MoveConflictException("Link " + afterId + " does not sort before " + beforeId);
+        }
+
+        String rank = FractionalRanks.between(lower, upper);
+        Timestamp updateTime = portfolioRepository.update(id, Map.of("rank", rank), expectedUpdateTime);
+        log.info("Moved portfolio link {} to rank {}", id, rank);
+        return updateTime;
+    }
+
     /**
      * Delete a portfolio link.
      */
     public void deleteLink(String id) throws ExecutionException, InterruptedException {
         log.info("Deleting portfolio link with ID: {}", id);
-        firestore.collection(COLLECTION_NAME).document(id).delete().get();
+        portfolioRepository.delete(id);
         log.info("Deleted portfolio link: {}", id);
     }
+
+    /**
+     * The rank a link sorts by: its own, or the one its integer order maps to.
+     */
+    static String effectiveRank(PortfolioLink link) {
+        return link.getRank() != null ? link.getRank() : FractionalRanks.fromOrder(link.getOrder());
+    }
+
+    private static void assignRank(PortfolioLink link) {
+        if (link.getRank() == null) {
+            link.setRank(FractionalRanks.fromOrder(link.getOrder()));
+        } else if (!FractionalRanks.isValid(link.getRank())) {
+            throw new IllegalArgumentException("Malformed rank: " + link.getRank());
+        }
+    }
+
+    private static EntityStream<PortfolioLink> streamOf(List<PortfolioLink> links) {
+        Iterator<PortfolioLink> iterator = links.iterator();
+        return new EntityStream<>() {
+            @Override
+            public PortfolioLink next() {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static String neighborRank(Map<String, PortfolioLink> neighbors, String id) {
+        if (id == null) {
+            return null;
+        }
+        PortfolioLink neighbor = neighbors.get(id);
+        if (neighbor == null) {
+            throw new MoveConflictException("Neighbor link not found: " + id);
+        }
+        return effectiveRank(neighbor);
+    }
 }
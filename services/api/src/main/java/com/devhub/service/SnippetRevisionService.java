@@ -0,0 +1,217 @@
+package com.devhub.service;
+
+import com.devhub.model.CodeSnippet;
+import com.devhub.model.LineEdit;
+import com.devhub.model.RevisionSummary;
+import com.devhub.model.SnippetDiff;
+import com.devhub.model.SnippetRevision;
+import com.devhub.model.SnippetVersion;
+import com.devhub.model.Versioned;
+import com.devhub.repository.DocumentRepository;
+import com.devhub.repository.QuerySpec;
+import com.google.cloud.Timestamp;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Revision history of code snippets, stored as periodic full snapshots with
+ * line-level deltas in between.
+ *
+ * Revision r is a snapshot when (r - 1) is a multiple of the snapshot
+ * interval K, or when its delta would be no smaller than the code itself.
+ * Rebuilding any revision therefore reads at most K documents (the target,
+ * then the rest of its chain in one batched get) and applies fewer than K
+ * deltas. The snippet document itself keeps the full current code, so
+ * reading the current version is unaffected.
+ *
+ * Revisions are written after the snippet update they describe succeeds;
+ * see {@link SnippetService#updateSnippet}.
+ */
+@Slf4j
+@Service
+public class SnippetRevisionService {
+
+    // Firestore's limit on writes in one batch
+    private static final int MAX_BATCH = 500;
+
+    private static final QuerySpec NEWEST_FIRST = QuerySpec.orderBy("revision", QuerySpec.Direction.DESCENDING);
+
+    @Autowired
+    private DocumentRepository<SnippetRevision> revisionRepository;
+
+    @Value("${devhub.snippets.history.snapshot-interval:20}")
+    private int snapshotInterval;
+
+    /**
+     * Record a new revision of a snippet.
+     *
+     * @param previous the snippet's content at revision - 1, or null if there is none
+     */
+    void record(String snippetId, int revision, CodeSnippet previous, CodeSnippet current)
+            throws ExecutionException, InterruptedException {
+        SnippetRevision stored = new SnippetRevision();
+        stored.setSnippetId(snippetId);
+        stored.setRevision(revision);
+        stored.setCreatedAt(current.getUpdatedAt() != null ? current.getUpdatedAt() : Timestamp.now());
+        stored.setTitle(current.getTitle());
+        stored.setLanguage(current.getLanguage());
+        stored.setDescription(current.getDescription());
+        stored.setTags(current.getTags());
+
+        List<String> after = LineDiff.split(current.getCode());
+        List<LineEdit> edits = previous != null
+                ? LineDiff.diff(LineDiff.split(previous.getCode()), after)
+                : List.of(new LineEdit(0, 0, after));
+        stored.setLinesAdded(edits.stream().mapToInt(edit -> edit.getInsert().size()).sum());
+        stored.setLinesRemoved(edits.stream().mapToInt(LineEdit::getRemoveCount).sum());
+
+        int scheduledSnapshot = revision - (revision - 1) % snapshotInterval;
+        boolean snapshot = previous == null || revision == scheduledSnapshot
+                || insertedChars(edits) >= length(current.getCode());
+        if (snapshot) {
+            stored.setBaseRevision(revision);
+            stored.setCode(current.getCode());
+        } else {
+            stored.setBaseRevision(scheduledSnapshot);
+            stored.setEdits(edits);
+        }
+
+        revisionRepository.save(revisionId(snippetId, revision), stored);
+        log.debug("Recorded revision {} of snippet {} as {}", revision, snippetId,
+                snapshot ? "snapshot" : edits.size() + " hunks");
+    }
+
+    /**
+     * List a snippet's revisions, newest first.
+     */
+    public List<RevisionSummary> listRevisions(String snippetId) throws ExecutionException, InterruptedException {
+        log.info("Listing revisions of snippet {}", snippetId);
+        List<SnippetRevision> revisions = revisionRepository.query(NEWEST_FIRST.whereEqualTo("snippetId", snippetId));
+
+        List<RevisionSummary> summaries = new ArrayList<>(revisions.size());
+        for (SnippetRevision revision : revisions) {
+            summaries.add(new RevisionSummary(revision.getRevision(), revision.getCreatedAt(), revision.getTitle(),
+                    revision.getCode() != null, revision.getLinesAdded(), revision.getLinesRemoved()));
+        }
+        return summaries;
+    }
+
+    /**
+     * Rebuild a snippet as of the given revision.
+     *
+     * @return the version, or null if the revision does not exist or its chain is incomplete
+     */
+    public SnippetVersion getVersion(String snippetId, int revision) throws ExecutionException, InterruptedException {
+        log.info("Fetching revision {} of snippet {}", revision, snippetId);
+        if (revision < 1) {
+            return null;
+        }
+        Versioned<SnippetRevision> target = revisionRepository.findById(revisionId(snippetId, revision));
+        if (target == null) {
+            return null;
+        }
+
+        // Gather the chain back to a snapshot; normally one batched read
+        Map<Integer, SnippetRevision> chain = new HashMap<>();
+        chain.put(revision, target.getValue());
+        int lowest = revision;
+        while (chain.get(lowest).getCode() == null) {
+            Integer base = chain.get(lowest).getBaseRevision();
+            if (base == null || base >= lowest) {
+                log.error("Revision {} of snippet {} has an invalid base {}", lowest, snippetId, base);
+                return null;
+            }
+            List<String> ids = new ArrayList<>();
+            for (int r = base; r < lowest; r++) {
+                ids.add(revisionId(snippetId, r));
+            }
+            for (SnippetRevision found : revisionRepository.findAllById(ids).values()) {
+                chain.put(found.getRevision(), found);
+            }
+            for (int r = base; r < lowest; r++) {
+                if (!chain.containsKey(r)) {
+                    log.warn("Revision {} of snippet {} is missing; cannot rebuild revision {}", r, snippetId, revision);
+                    return null;
+                }
+            }
+            lowest = base;
+        }
+
+        // Start from the latest snapshot in the chain and replay the deltas after it
+        int start = revision;
+        while (chain.get(start).getCode() == null) {
+            start--;
+        }
+        List<String> lines = LineDiff.split(chain.get(start).getCode());
+        for (int r = start + 1; r <= revision; r++) {
+            lines = LineDiff.apply(lines, chain.get(r).getEdits());
+        }
+
+        SnippetRevision stored = target.getValue();
+        return new SnippetVersion(snippetId, revision, stored.getCreatedAt(), stored.getTitle(),
+                stored.getLanguage(), stored.getDescription(), stored.getTags(), LineDiff.join(lines));
+    }
+
+    /**
+     * Line differences between the code of two revisions.
+     *
+     * @return the diff, or null if either revision cannot be rebuilt
+     */
+    public SnippetDiff diff(String snippetId, int fromRevision, int toRevision)
+            throws ExecutionException, InterruptedException {
+        SnippetVersion from = getVersion(snippetId, fromRevision);
+        SnippetVersion to = from != null ? getVersion(snippetId, toRevision) : null;
+        if (to == null) {
+            return null;
+        }
+
+        List<String> before = LineDiff.split(from.getCode());
+        List<SnippetDiff.Hunk> hunks = new ArrayList<>();
+        int shift = 0;
+        for (LineEdit edit : LineDiff.diff(before, LineDiff.split(to.getCode()))) {
+            int at = edit.getAt();
+            hunks.add(new SnippetDiff.Hunk(at + 1, at + shift + 1,
+                    new ArrayList<>(before.subList(at, at + edit.getRemoveCount())), edit.getInsert()));
+            shift += edit.getInsert().size() - edit.getRemoveCount();
+        }
+        return new SnippetDiff(snippetId, fromRevision, toRevision, hunks);
+    }
+
+    /**
+     * Delete all stored revisions of a snippet, in batches of up to 500.
+     */
+    void deleteHistory(String snippetId) throws ExecutionException, InterruptedException {
+        List<SnippetRevision> revisions = revisionRepository.query(NEWEST_FIRST.whereEqualTo("snippetId", snippetId));
+        List<String> ids = revisions.stream().map(SnippetRevision::getId).toList();
+        for (int start = 0; start < ids.size(); start += MAX_BATCH) {
+            revisionRepository.deleteAll(ids.subList(start, Math.min(ids.size(), start + MAX_BATCH)));
+        }
+        log.info("Deleted {} revisions of snippet {}", revisions.size(), snippetId);
+    }
+
+    private static String revisionId(String snippetId, int revision) {
+        return String.format("%s_%08d", snippetId, revision);
+    }
+
+    private static int insertedChars(List<LineEdit> edits) {
+        int chars = 0;
+        for (LineEdit edit : edits) {
+            for (String line : edit.getInsert()) {
+                chars += line.length() + 1;
+            }
+        }
+        return chars;
+    }
+
+    private static int length(String text) {
+        return text != null ? text.length() : 0;
+    }
+}
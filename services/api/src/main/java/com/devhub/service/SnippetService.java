@@ -1,47 +1,71 @@
 package com.devhub.service;
 
+import com.devhub.model.BatchGetResult;
 import com.devhub.model.CodeSnippet;
-import com.google.api.core.ApiFuture;
+import com.devhub.model.Versioned;
+import com.devhub.repository.DocumentNotFoundException;
+import com.devhub.repository.DocumentRepository;
+import com.devhub.repository.EntityStream;
+import com.devhub.repository.PreconditionFailedException;
+import com.devhub.repository.QuerySpec;
 import com.google.cloud.Timestamp;
-import com.google.cloud.firestore.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 /**
- * Service for managing code snippets in Firestore.
+ * Service for managing code snippets.
  */
 @Slf4j
 @Service
 public class SnippetService {
 
-    private static final String COLLECTION_NAME = "snippets";
+    private static final Map<String, Class<?>> PATCHABLE_FIELDS = Map.of(
+            "title", String.class,
+            "code", String.class,
+            "language", String.class,
+            "tags", List.class,
+            "category", String.class,
+            "gcsFileUrl", String.class,
+            "isPublic", Boolean.class,
+            "description", String.class,
+            "author", String.class);
+
+    private static final Set<String> REQUIRED_FIELDS = Set.of("title", "code", "language");
+
+    // Fields kept in the revision history; changing any of them records a revision
+    private static final Set<String> REVISIONED_FIELDS = Set.of("title", "code", "language", "description", "tags");
+
+    // Attempts at a revisioned write before giving up on concurrent updates
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private static final QuerySpec NEWEST_FIRST = QuerySpec.orderBy("createdAt", QuerySpec.Direction.DESCENDING);
+
+    @Autowired
+    private DocumentRepository<CodeSnippet> snippetRepository;
 
     @Autowired
-    private Firestore firestore;
+    private SnippetRevisionService revisionService;
+
+    @Value("${devhub.batch-get.max-ids:300}")
+    private int maxBatchGetIds;
 
     /**
      * Get all snippets ordered by creation date (most recent first).
      */
     public List<CodeSnippet> getAllSnippets() throws ExecutionException, InterruptedException {
         log.info("Fetching all code snippets");
-        List<CodeSnippet> snippets = new ArrayList<>();
-
-        ApiFuture<QuerySnapshot> query = firestore.collection(COLLECTION_NAME)
-                .orderBy("createdAt", Query.Direction.DESCENDING)
-                .get();
-
-        for (DocumentSnapshot doc : query.get().getDocuments()) {
-            CodeSnippet snippet = doc.toObject(CodeSnippet.class);
-            if (snippet != null) {
-                snippet.setId(doc.getId());
-                snippets.add(snippet);
-            }
-        }
+        List<CodeSnippet> snippets = snippetRepository.query(NEWEST_FIRST);
 
         log.info("Retrieved {} code snippets", snippets.size());
         return snippets;
@@ -52,20 +76,7 @@ public class SnippetService {
      */
     public List<CodeSnippet> getPublicSnippets() throws ExecutionException, InterruptedException {
         log.info("Fetching public code snippets");
-        List<CodeSnippet> snippets = new ArrayList<>();
-
-        ApiFuture<QuerySnapshot> query = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("isPublic", true)
-                .orderBy("createdAt", Query.Direction.DESCENDING)
-                .get();
-
-        for (DocumentSnapshot doc : query.get().getDocuments()) {
-            CodeSnippet snippet = doc.toObject(CodeSnippet.class);
-            if (snippet != null) {
-                snippet.setId(doc.getId());
-                snippets.add(snippet);
-            }
-        }
+        List<CodeSnippet> snippets = snippetRepository.query(NEWEST_FIRST.whereEqualTo("isPublic", true));
 
         log.info("Retrieved {} public code snippets", snippets.size());
         return snippets;
@@ -76,20 +87,7 @@ public class SnippetService {
      */
     public List<CodeSnippet> getSnippetsByLanguage(String language) throws ExecutionException, InterruptedException {
         log.info("Fetching snippets for language: {}", language);
-        List<CodeSnippet> snippets = new ArrayList<>();
-
-        ApiFuture<QuerySnapshot> query = firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("language", language)
-                .orderBy("createdAt", Query.Direction.DESCENDING)
-                .get();
-
-        for (DocumentSnapshot doc : query.get().getDocuments()) {
-            CodeSnippet snippet = doc.toObject(CodeSnippet.class);
-            if (snippet != null) {
-                snippet.setId(doc.getId());
-                snippets.add(snippet);
-            }
-        }
+        List<CodeSnippet> snippets = snippetRepository.query(NEWEST_FIRST.whereEqualTo("language", language));
 
         log.info("Retrieved {} snippets for language {}", snippets.size(), language);
         return snippets;
@@ -100,42 +98,90 @@ public class SnippetService {
      */
     public List<CodeSnippet> getSnippetsByTag(String tag) throws ExecutionException, InterruptedException {
         log.info("Fetching snippets with tag: {}", tag);
-        List<CodeSnippet> snippets = new ArrayList<>();
-
-        ApiFuture<QuerySnapshot> query = firestore.collection(COLLECTION_NAME)
-                .whereArrayContains("tags", tag)
-                .orderBy("createdAt", Query.Direction.DESCENDING)
-                .get();
-
-        for (DocumentSnapshot doc : query.get().getDocuments()) {
-            CodeSnippet snippet = doc.toObject(CodeSnippet.class);
-            if (snippet != null) {
-                snippet.setId(doc.getId());
-                snippets.add(snippet);
-            }
-        }
+        List<CodeSnippet> snippets = snippetRepository.query(NEWEST_FIRST.whereArrayContains("tags", tag));
 
         log.info("Retrieved {} snippets with tag {}", snippets.size(), tag);
         return snippets;
     }
 
+    /**
+     * Stream all snippets ordered by creation date (most recent first).
+     * The caller must close the stream.
+     */
+    public EntityStream<CodeSnippet> streamAllSnippets() throws ExecutionException, InterruptedException {
+        log.info("Streaming all code snippets");
+        return snippetRepository.stream(NEWEST_FIRST);
+    }
+
+    /**
+     * Stream public snippets only. The caller must close the stream.
+     */
+    public EntityStream<CodeSnippet> streamPublicSnippets() throws ExecutionException, InterruptedException {
+        log.info("Streaming public code snippets");
+        return snippetRepository.stream(NEWEST_FIRST.whereEqualTo("isPublic", true));
+    }
+
+    /**
+     * Stream snippets by language. The caller must close the stream.
+     */
+    public EntityStream<CodeSnippet> streamSnippetsByLanguage(String language) throws ExecutionException, InterruptedException {
+        log.info("Streaming snippets for language: {}", language);
+        return snippetRepository.stream(NEWEST_FIRST.whereEqualTo("language", language));
+    }
+
+    /**
+     * Stream snippets by tag. The caller must close the stream.
+     */
+    public EntityStream<CodeSnippet> streamSnippetsByTag(String tag) throws ExecutionException, InterruptedException {
+        log.info("Streaming snippets with tag: {}", tag);
+        return snippetRepository.stream(NEWEST_FIRST.whereArrayContains("tags", tag));
+    }
+
+    /**
+     * Get several snippets by ID with a single batched read.
+     * Results are in request order; IDs that do not exist come back with found=false.
+     *
+     * @throws IllegalArgumentException if no IDs or more than the configured maximum are requested
+     */
+    public List<BatchGetResult<CodeSnippet>> getSnippetsByIds(List<String> ids) throws ExecutionException, InterruptedException {
+        if (ids.isEmpty() || ids.size() > maxBatchGetIds) {
+            throw new IllegalArgumentException("Between 1 and " + maxBatchGetIds + " IDs must be requested");
+        }
+        log.info("Fetching {} snippets by ID", ids.size());
+
+        // Duplicates are read once but still answered at every position they were requested
+        Set<String> uniqueIds = new LinkedHashSet<>(ids);
+        Map<String, CodeSnippet> found = snippetRepository.findAllById(uniqueIds);
+
+        List<BatchGetResult<CodeSnippet>> results = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            CodeSnippet snippet = found.get(id);
+            results.add(new BatchGetResult<>(id, snippet != null, snippet));
+        }
+
+        log.info("Found {} of {} requested snippets", found.size(), uniqueIds.size());
+        return results;
+    }
+
     /**
      * Get a single snippet by ID.
      */
     public CodeSnippet getSnippetById(String id) throws ExecutionException, InterruptedException {
+        Versioned<CodeSnippet> versioned = getVersionedSnippetById(id);
+        return versioned != null ? versioned.getValue() : null;
+    }
+
+    /**
+     * Get a single snippet by ID together with its update time (used as the ETag).
+     */
+    public Versioned<CodeSnippet> getVersionedSnippetById(String id) throws ExecutionException, InterruptedException {
         log.info("Fetching snippet with ID: {}", id);
-        DocumentSnapshot doc = firestore.collection(COLLECTION_NAME).document(id).get().get();
+        Versioned<CodeSnippet> versioned = snippetRepository.findById(id);
 
-        if (!doc.exists()) {
+        if (versioned == null) {
             log.warn("Snippet not found: {}", id);
-            return null;
         }
-
-        CodeSnippet snippet = doc.toObject(CodeSnippet.class);
-        if (snippet != null) {
-            snippet.setId(doc.getId());
-        }
-        return snippet;
+        return versioned;
     }
 
     /**
@@ -148,15 +194,27 @@ public class SnippetService {
         Timestamp now = Timestamp.now();
         snippet.setCreatedAt(now);
         snippet.setUpdatedAt(now);
+        snippet.setRevision(1);
 
-        ApiFuture<DocumentReference> result = firestore.collection(COLLECTION_NAME).add(snippet);
-        String id = result.get().getId();
+        String id = snippetRepository.create(snippet);
+        recordRevision(id, 1, null, snippet);
         log.info("Created snippet with ID: {}", id);
         return id;
     }
 
     /**
-     * Update an existing snippet.
+     * Update an existing snippet, recording the previous content in its revision history.
+     * An update that leaves every revisioned field as it was keeps the current
+     * revision and records nothing.
+     *
+     * The write is conditional on the snippet not having changed since it was
+     * read, so each revision number is taken by exactly one update and its
+     * delta is against the right predecessor; conflicting updates are retried.
+     * The revision is recorded after the snippet is written. If that second
+     * write fails, the snippet is still updated but the revision is missing
+     * from its history.
+     *
+     * @throws com.devhub.repository.PreconditionFailedException if concurrent updates kept winning
      */
     public void updateSnippet(String id, CodeSnippet snippet) throws ExecutionException, InterruptedException {
         log.info("Updating snippet with ID: {}", id);
@@ -164,16 +222,186 @@ public class SnippetService {
         // Update timestamp
         snippet.setUpdatedAt(Timestamp.now());
 
-        firestore.collection(COLLECTION_NAME).document(id).set(snippet).get();
+        for (int attempt = 1; ; attempt++) {
+            Versioned<CodeSnippet> current = snippetRepository.findById(id);
+            if (current == null) {
+                // PUT to an unknown ID creates the snippet, as it always has
+                snippet.setRevision(1);
+                snippetRepository.save(id, snippet);
+                recordRevision(id, 1, null, snippet);
+                break;
+            }
+
+            CodeSnippet previous = current.getValue();
+            boolean revised = !sameContent(previous, snippet);
+            snippet.setRevision(revised ? nextRevision(previous) : previous.getRevision());
+            try {
+                snippetRepository.update(id, allFields(snippet), current.getUpdateTime());
+            } catch (PreconditionFailedException | DocumentNotFoundException e) {
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("Snippet {} changed during update; retrying", id);
+                continue;
+            }
+            if (revised) {
+                recordRevisions(id, previous, snippet);
+            }
+            break;
+        }
         log.info("Updated snippet: {}", id);
     }
 
+    /**
+     * Update only the given fields of a snippet, leaving the rest of the document untouched.
+     * As with updateSnippet, a revision is only recorded if a revisioned field changes value.
+     *
+     * @param fields field name to new value; see PATCHABLE_FIELDS
+     * @param expectedUpdateTime only apply if the document's update time still matches, or null
+     * @return the document's new update time
+     * @throws IllegalArgumentException if a field is unknown, has the wrong type or blanks a required field
+     * @throws com.devhub.repository.DocumentNotFoundException if the snippet does not exist
+     * @throws com.devhub.repository.PreconditionFailedException if the update time no longer matches
+     */
+    public Timestamp patchSnippet(String id, Map<String, Object> fields, Timestamp expectedUpdateTime)
+            throws ExecutionException, InterruptedException {
+        log.info("Patching snippet {} fields: {}", id, fields.keySet());
+
+        Map<String, Object> updates = FieldMasks.validate(fields, PATCHABLE_FIELDS, REQUIRED_FIELDS);
+        updates.put("updatedAt", Timestamp.now());
+
+        if (updates.keySet().stream().noneMatch(REVISIONED_FIELDS::contains)) {
+            Timestamp updateTime = snippetRepository.update(id, updates, expectedUpdateTime);
+            log.info("Patched snippet: {}", id);
+            return updateTime;
+        }
+
+        // Content changes need the previous version for the history; see updateSnippet
+        for (int attempt = 1; ; attempt++) {
+            Versioned<CodeSnippet> current = snippetRepository.findById(id);
+            if (current == null) {
+                throw new DocumentNotFoundException(id);
+            }
+            if (expectedUpdateTime != null && !expectedUpdateTime.equals(current.getUpdateTime())) {
+                throw new PreconditionFailedException(id);
+            }
+
+            CodeSnippet previous = current.getValue();
+            CodeSnippet patched = patchedContent(previous, updates);
+            boolean revised = !sameContent(previous, patched);
+            if (revised) {
+                patched.setRevision(nextRevision(previous));
+                updates.put("revision", patched.getRevision());
+            } else {
+                updates.remove("revision");
+            }
+
+            Timestamp updateTime;
+            try {
+                updateTime = snippetRepository.update(id, updates, current.getUpdateTime());
+            } catch (PreconditionFailedException e) {
+                // With If-Match the client asked for exactly that version; don't retry past it
+                if (expectedUpdateTime != null || attempt >= MAX_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("Snippet {} changed during patch; retrying", id);
+                continue;
+            }
+            if (!revised) {
+                log.info("Patched snippet: {} (content unchanged)", id);
+                return updateTime;
+            }
+            recordRevisions(id, previous, patched);
+            log.info("Patched snippet: {} (revision {})", id, patched.getRevision());
+            return updateTime;
+        }
+    }
+
     /**
      * Delete a snippet.
      */
     public void deleteSnippet(String id) throws ExecutionException, InterruptedException {
         log.info("Deleting snippet with ID: {}", id);
-        firestore.collection(COLLECTION_NAME).document(id).delete().get();
+        snippetRepository.delete(id);
         log.info("Deleted snippet: {}", id);
+
+        try {
+            revisionService.deleteHistory(id);
+        } catch (ExecutionException | RuntimeException e) {
+            log.error("Error deleting revision history of snippet: {}", id, e);
+        }
+    }
+
+    private static int nextRevision(CodeSnippet previous) {
+        // Snippets from before history existed get their current content recorded as revision 1
+        return previous.getRevision() != null ? previous.getRevision() + 1 : 2;
+    }
+
+    private void recordRevisions(String id, CodeSnippet previous, CodeSnippet current) throws InterruptedException {
+        if (previous.getRevision() == null) {
+            recordRevision(id, 1, null, previous);
+        }
+        recordRevision(id, current.getRevision(), previous, current);
+    }
+
+    private void recordRevision(String id, int revision, CodeSnippet previous, CodeSnippet current)
+            throws InterruptedException {
+        try {
+            revisionService.record(id, revision, previous, current);
+        } catch (ExecutionException | RuntimeException e) {
+            // The snippet itself is already written; only its history has a gap
+            log.error("Error recording revision {} of snippet {}", revision, id, e);
+        }
+    }
+
+    /**
+     * Whether the two have the same value in every field of REVISIONED_FIELDS;
+     * missing tags count as no tags.
+     */
+    private static boolean sameContent(CodeSnippet a, CodeSnippet b) {
+        return Objects.equals(a.getTitle(), b.getTitle())
+                && Objects.equals(a.getCode(), b.getCode())
+                && Objects.equals(a.getLanguage(), b.getLanguage())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && Objects.equals(tagsOf(a), tagsOf(b));
+    }
+
+    private static List<String> tagsOf(CodeSnippet snippet) {
+        return snippet.getTags() != null ? snippet.getTags() : List.of();
+    }
+
+    /**
+     * Every field of a snippet, so update() replaces the document's content the way set() would.
+     */
+    private static Map<String, Object> allFields(CodeSnippet snippet) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("title", snippet.getTitle());
+        fields.put("code", snippet.getCode());
+        fields.put("language", snippet.getLanguage());
+        fields.put("tags", snippet.getTags());
+        fields.put("createdAt", snippet.getCreatedAt());
+        fields.put("updatedAt", snippet.getUpdatedAt());
+        fields.put("category", snippet.getCategory());
+        fields.put("gcsFileUrl", snippet.getGcsFileUrl());
+        fields.put("isPublic", snippet.getIsPublic());
+        fields.put("description", snippet.getDescription());
+        fields.put("author", snippet.getAuthor());
+        fields.put("revision", snippet.getRevision());
+        return fields;
+    }
+
+    /**
+     * The revisioned content of a snippet after applying a validated patch.
+     */
+    @SuppressWarnings("unchecked")
+    private static CodeSnippet patchedContent(CodeSnippet snippet, Map<String, Object> updates) {
+        CodeSnippet patched = new CodeSnippet();
+        patched.setTitle((String) updates.getOrDefault("title", snippet.getTitle()));
+        patched.setCode((String) updates.getOrDefault("code", snippet.getCode()));
+        patched.setLanguage((String) updates.getOrDefault("language", snippet.getLanguage()));
+        patched.setDescription((String) updates.getOrDefault("description", snippet.getDescription()));
+        patched.setTags((List<String>) updates.getOrDefault("tags", snippet.getTags()));
+        patched.setUpdatedAt((Timestamp) updates.get("updatedAt"));
+        return patched;
     }
 }
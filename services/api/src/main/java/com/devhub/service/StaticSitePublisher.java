@@ -0,0 +1,499 @@
+package com.devhub.service;
+
+import com.devhub.model.CodeSnippet;
+import com.devhub.model.PortfolioLink;
+import com.devhub.model.SiteManifest;
+import com.devhub.repository.ChangeListener;
+import com.devhub.repository.DocumentRepository;
+import com.devhub.repository.EntityChange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Publishes the public read models (portfolio links, public snippets, and
+ * both broken down by category/language) as static gzip'd JSON in GCS, so a
+ * CDN in front of the bucket can serve the public site without the API.
+ *
+ * Layout under devhub.publish.prefix:
+ * manifest.json names the current object for each read model (see
+ * {@link SiteManifest}); data/... holds the objects, which are immutable and
+ * never overwritten, so they can be cached indefinitely.
+ *
+ * Changes arrive through repository watches. They are debounced (publishing
+ * debounce-ms after the last change, and no later than max-delay-ms after
+ * the first) and incremental: only the lists a change touches are
+ * re-rendered (the full list plus the old and new category or language),
+ * snippet changes that never involved a public snippet are ignored, and
+ * lists whose content is unchanged are not uploaded again. Each watch (re)start
+ * re-renders its collection in full.
+ *
+ * A publish ends by replacing manifest.json with a generation precondition:
+ * the swap is atomic for readers, and when several pods publish at once
+ * each manifest builds on the one before it. A pod that loses the race
+ * discards its uploads and renders again. Objects a manifest stops naming
+ * are deleted after retire-grace-minutes, once clients holding the old
+ * manifest have moved on; objects retired just before a restart are left behind.
+ *
+ * devhub.publish.enabled is read at startup rather than as a bean condition,
+ * so it can be switched on a fast-start (AOT) image, whose bean graph is fixed
+ * at build time. When it is off no watches are started.
+ */
+@Slf4j
+@Service
+public class StaticSitePublisher {
+
+    static final String PORTFOLIO = "portfolio";
+    static final String PORTFOLIO_CATEGORY = "portfolio/category/";
+    static final String PUBLIC_SNIPPETS = "snippets/public";
+    static final String PUBLIC_SNIPPETS_LANGUAGE = "snippets/public/language/";
+
+    private static final String MANIFEST = "manifest.json";
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    @Autowired
+    private DocumentRepository<PortfolioLink> portfolioRepository;
+
+    @Autowired
+    private DocumentRepository<CodeSnippet> snippetRepository;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private SnippetService snippetService;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${devhub.publish.enabled:false}")
+    private boolean enabled;
+
+    @Value("${devhub.publish.bucket:${gcp.storage.bucket:devhub-storage}}")
+    private String bucket;
+
+    @Value("${devhub.publish.prefix:site/}")
+    private String prefix;
+
+    @Value("${devhub.publish.debounce-ms:2000}")
+    private long debounceMs;
+
+    @Value("${devhub.publish.max-delay-ms:30000}")
+    private long maxDelayMs;
+
+    @Value("${devhub.publish.retry-delay-ms:30000}")
+    private long retryDelayMs;
+
+    @Value("${devhub.publish.manifest-max-age-seconds:30}")
+    private long manifestMaxAgeSeconds;
+
+    @Value("${devhub.publish.retire-grace-minutes:60}")
+    private long retireGraceMinutes;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "static-site-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Everything below is confined to the executor thread
+
+    private final Dirty dirty = new Dirty();
+
+    // Category of every link and language of every public snippet, as of the last render
+    private final Map<String, String> linkCategories = new HashMap<>();
+    private final Map<String, String> publicSnippetLanguages = new HashMap<>();
+
+    private final Deque<Retired> retired = new ArrayDeque<>();
+
+    private ScheduledFuture<?> pending;
+    private long firstChangeNanos;
+
+    private DocumentRepository.Watch portfolioWatch;
+    private DocumentRepository.Watch snippetWatch;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            log.info("Static site publishing disabled");
+            return;
+        }
+        portfolioWatch = portfolioRepository.watch(executor, new PortfolioListener());
+        snippetWatch = snippetRepository.watch(executor, new SnippetListener());
+        executor.scheduleWithFixedDelay(this::deleteRetired, 1, 1, TimeUnit.MINUTES);
+        log.info("Publishing static site to gs://{}/{}", bucket, prefix);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (portfolioWatch != null) {
+            portfolioWatch.cancel();
+        }
+        if (snippetWatch != null) {
+            snippetWatch.cancel();
+        }
+        executor.shutdownNow();
+    }
+
+    private class PortfolioListener implements ChangeListener<PortfolioLink> {
+
+        @Override
+        public void onStart() {
+            dirty.portfolioFull = true;
+            schedule();
+        }
+
+        @Override
+        public void onChanges(List<EntityChange<PortfolioLink>> changes) {
+            for (EntityChange<PortfolioLink> change : changes) {
+                // Every link is in the full list, and in its old and new category
+                dirty.portfolio = true;
+                addIfPresent(dirty.categories, linkCategories.get(change.id()));
+                addIfPresent(dirty.categories, change.entity() != null ? change.entity().getCategory() : null);
+            }
+            schedule();
+        }
+    }
+
+    private class SnippetListener implements ChangeListener<CodeSnippet> {
+
+        @Override
+        public void onStart() {
+            dirty.snippetsFull = true;
+            schedule();
+        }
+
+        @Override
+        public void onChanges(List<EntityChange<CodeSnippet>> changes) {
+            boolean relevant = false;
+            for (EntityChange<CodeSnippet> change : changes) {
+                boolean wasPublic = publicSnippetLanguages.containsKey(change.id());
+                boolean isPublic = change.entity() != null && Boolean.TRUE.equals(change.entity().getIsPublic());
+                if (!wasPublic && !isPublic) {
+                    continue;
+                }
+                relevant = true;
+                dirty.snippets = true;
+                addIfPresent(dirty.languages, publicSnippetLanguages.get(change.id()));
+                addIfPresent(dirty.languages, isPublic ? change.entity().getLanguage() : null);
+            }
+            if (relevant) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Publish debounceMs after the latest change, but no more than maxDelayMs after the first.
+     */
+    private void schedule() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (pending == null) {
+            firstChangeNanos = now;
+        } else {
+            pending.cancel(false);
+        }
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(now - firstChangeNanos);
+        long delayMs = Math.min(debounceMs, Math.max(0, maxDelayMs - waitedMs));
+        pending = executor.schedule(this::publishQuietly, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void publishQuietly() {
+        pending = null;
+        Dirty work = dirty.take();
+        if (work.isEmpty()) {
+            return;
+        }
+        try {
+            if (!publish(work)) {
+                log.info("Manifest changed while publishing; rendering again");
+                dirty.merge(work);
+                schedule();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | IOException | RuntimeException e) {
+            log.error("Error publishing static site; retrying in {} ms", retryDelayMs, e);
+            dirty.merge(work);
+            pending = executor.schedule(this::publishQuietly, retryDelayMs, TimeUnit.MILLISECONDS);
+            firstChangeNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Render the dirty read models and swap in a new manifest naming them.
+     *
+     * @return false if another publisher replaced the manifest first
+     */
+    private boolean publish(Dirty work) throws ExecutionException, InterruptedException, IOException {
+        StorageService.StoredObject stored = storageService.readObject(bucket, prefix + MANIFEST);
+        SiteManifest previous = stored != null
+                ? objectMapper.readValue(stored.content(), SiteManifest.class)
+                : new SiteManifest();
+        Render render = new Render(previous.getVersion() + 1, previous.getObjects());
+
+        Map<String, String> categories = null;
+        if (work.portfolio || work.portfolioFull) {
+            List<PortfolioLink> links = portfolioService.getAllLinks();
+            render.put(PORTFOLIO, links);
+            renderGroups(render, PORTFOLIO_CATEGORY, links, PortfolioLink::getCategory,
+                    work.portfolioFull ? null : work.categories);
+
+            categories = new HashMap<>();
+            for (PortfolioLink link : links) {
+                categories.put(link.getId(), link.getCategory());
+            }
+        }
+
+        Map<String, String> languages = null;
+        if (work.snippets || work.snippetsFull) {
+            List<CodeSnippet> snippets = snippetService.getPublicSnippets();
+            render.put(PUBLIC_SNIPPETS, snippets);
+            renderGroups(render, PUBLIC_SNIPPETS_LANGUAGE, snippets, CodeSnippet::getLanguage,
+                    work.snippetsFull ? null : work.languages);
+
+            languages = new HashMap<>();
+            for (CodeSnippet snippet : snippets) {
+                languages.put(snippet.getId(), snippet.getLanguage());
+            }
+        }
+
+        if (!render.changed()) {
+            log.debug("Static site unchanged at version {}", previous.getVersion());
+            updateIndexes(categories, languages);
+            return true;
+        }
+
+        SiteManifest manifest = new SiteManifest(render.version, Instant.now().toString(), render.objects);
+        boolean swapped = storageService.replaceObject(bucket, prefix + MANIFEST,
+                objectMapper.writeValueAsBytes(manifest), "application/json",
+                "public, max-age=" + manifestMaxAgeSeconds, stored != null ? stored.generation() : 0);
+        if (!swapped) {
+            // Never referenced by any manifest, so safe to delete right away
+            for (String path : render.uploaded) {
+                storageService.deleteObject(bucket, prefix + path);
+            }
+            return false;
+        }
+
+        Instant now = Instant.now();
+        for (String path : render.replaced) {
+            retired.addLast(new Retired(path, now));
+        }
+        updateIndexes(categories, languages);
+        log.info("Published static site version {} ({} objects uploaded)", render.version, render.uploaded.size());
+        return true;
+    }
+
+    /**
+     * Render the per-group lists in the given keys (or every group when keys is null).
+     * Groups that have become empty are dropped from the manifest.
+     */
+    private <T> void renderGroups(Render render, String keyPrefix, List<T> items, Function<T, String> groupOf,
+                                  Set<String> keys) throws IOException {
+        // Preserves the list's order within each group
+        Map<String, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            String group = groupOf.apply(item);
+            if (group != null) {
+                groups.computeIfAbsent(group, g -> new ArrayList<>()).add(item);
+            }
+        }
+
+        Set<String> toRender = keys;
+        if (toRender == null) {
+            toRender = new HashSet<>(groups.keySet());
+            for (String key : render.objects.keySet()) {
+                if (key.startsWith(keyPrefix)) {
+                    toRender.add(key.substring(keyPrefix.length()));
+                }
+            }
+        }
+        for (String group : toRender) {
+            List<T> members = groups.get(group);
+            if (members == null) {
+                render.remove(keyPrefix + group);
+            } else {
+                render.put(keyPrefix + group, members);
+            }
+        }
+    }
+
+    private void updateIndexes(Map<String, String> categories, Map<String, String> languages) {
+        if (categories != null) {
+            linkCategories.clear();
+            linkCategories.putAll(categories);
+        }
+        if (languages != null) {
+            publicSnippetLanguages.clear();
+            publicSnippetLanguages.putAll(languages);
+        }
+    }
+
+    private void deleteRetired() {
+        Instant cutoff = Instant.now().minus(retireGraceMinutes, ChronoUnit.MINUTES);
+        while (!retired.isEmpty() && retired.peekFirst().at().isBefore(cutoff)) {
+            Retired object = retired.removeFirst();
+            try {
+                storageService.deleteObject(bucket, prefix + object.path());
+            } catch (RuntimeException e) {
+                log.warn("Error deleting retired static object {}", object.path(), e);
+            }
+        }
+    }
+
+    private static void addIfPresent(Set<String> set, String value) {
+        if (value != null) {
+            set.add(value);
+        }
+    }
+
+    /**
+     * The read models one publish has to render, accumulated between publishes.
+     */
+    private static final class Dirty {
+
+        boolean portfolio;
+        boolean portfolioFull;
+        Set<String> categories = new HashSet<>();
+        boolean snippets;
+        boolean snippetsFull;
+        Set<String> languages = new HashSet<>();
+
+        Dirty take() {
+            Dirty taken = new Dirty();
+            taken.merge(this);
+            portfolio = portfolioFull = snippets = snippetsFull = false;
+            categories = new HashSet<>();
+            languages = new HashSet<>();
+            return taken;
+        }
+
+        void merge(Dirty other) {
+            portfolio |= other.portfolio;
+            portfolioFull |= other.portfolioFull;
+            categories.addAll(other.categories);
+            snippets |= other.snippets;
+            snippetsFull |= other.snippetsFull;
+            languages.addAll(other.languages);
+        }
+
+        boolean isEmpty() {
+            return !portfolio && !portfolioFull && !snippets && !snippetsFull;
+        }
+    }
+
+    /**
+     * One publish in progress: the next manifest's objects and what changed to get there.
+     */
+    private final class Render {
+
+        final long version;
+        final Map<String, SiteManifest.PublishedObject> objects;
+        final List<String> uploaded = new ArrayList<>();
+        final List<String> replaced = new ArrayList<>();
+
+        Render(long version, Map<String, SiteManifest.PublishedObject> previous) {
+            this.version = version;
+            this.objects = new TreeMap<>(previous);
+        }
+
+        void put(String key, List<?> items) throws IOException {
+            byte[] json = objectMapper.writeValueAsBytes(items);
+            String sha256 = sha256(json);
+            SiteManifest.PublishedObject current = objects.get(key);
+            if (current != null && sha256.equals(current.getSha256())) {
+                return;
+            }
+
+            // A fresh name for every upload, so a published object is never overwritten
+            String path = "data/" + encode(key) + "/" + version + "-" + UUID.randomUUID().toString().substring(0, 8)
+                    + ".json";
+            storageService.writeObject(bucket, prefix + path, gzip(json), "application/json", "gzip", IMMUTABLE);
+            uploaded.add(path);
+            if (current != null) {
+                replaced.add(current.getPath());
+            }
+            objects.put(key, new SiteManifest.PublishedObject(path, sha256, items.size()));
+        }
+
+        void remove(String key) {
+            SiteManifest.PublishedObject current = objects.remove(key);
+            if (current != null) {
+                replaced.add(current.getPath());
+            }
+        }
+
+        boolean changed() {
+            return !uploaded.isEmpty() || !replaced.isEmpty();
+        }
+    }
+
+    private record Retired(String path, Instant at) {
+    }
+
+    /**
+     * Key segments URL-encoded, so categories and languages are safe in object names.
+     */
+    private static String encode(String key) {
+        String[] segments = key.split("/");
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = URLEncoder.encode(segments[i], StandardCharsets.UTF_8);
+        }
+        return String.join("/", segments);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+}
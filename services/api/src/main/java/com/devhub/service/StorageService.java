@@ -1,13 +1,18 @@
 package com.devhub.service;
 
+import com.google.cloud.NoCredentials;
 import com.google.cloud.storage.*;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * Service for managing file uploads to Google Cloud Storage.
@@ -19,10 +24,68 @@ public class StorageService {
     @Value("${gcp.storage.bucket:devhub-storage}")
     private String bucketName;
 
-    private final Storage storage;
+    private final String emulatorHost;
 
-    public StorageService() {
-        this.storage = StorageOptions.getDefaultInstance().getService();
+    private final String projectId;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    // Created on first use (or by GcpClientWarmer) so the constructor stays cheap at startup
+    private volatile Storage storage;
+
+    public StorageService(@Value("${gcp.storage.emulator-host:}") String emulatorHost,
+                          @Value("${spring.cloud.gcp.project-id:}") String projectId) {
+        this.emulatorHost = emulatorHost;
+        this.projectId = projectId;
+    }
+
+    /**
+     * Create the client and look up the bucket, so the first upload does not pay
+     * for credential loading and connection setup.
+     */
+    public void warmUp() {
+        storage().get(bucketName, Storage.BucketGetOption.fields(Storage.BucketField.NAME));
+        log.info("GCS client warmed up for bucket: {}", bucketName);
+    }
+
+    private Storage storage() {
+        Storage result = storage;
+        if (result == null) {
+            synchronized (this) {
+                result = storage;
+                if (result == null) {
+                    result = createStorage();
+                    storage = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Record a GCS call as a devhub.storage observation (tracing span and Server-Timing entry).
+     */
+    private <T> T observe(String operation, Supplier<T> call) {
+        return Observation.createNotStarted("devhub.storage", observationRegistry)
+                .contextualName("gcs." + operation)
+                .lowCardinalityKeyValue("devhub.operation", operation)
+                .observe(call);
+    }
+
+    private Storage createStorage() {
+        if (emulatorHost.isEmpty()) {
+            return StorageOptions.getDefaultInstance().getService();
+        }
+
+        // Local GCS stand-in (e.g. fake-gcs-server) used by the load-test harness
+        log.info("Using GCS emulator at {}", emulatorHost);
+        return StorageOptions.newBuilder()
+                .setHost(emulatorHost)
+                .setProjectId(projectId)
+                .setCredentials(NoCredentials.getInstance())
+                .build()
+                .getService();
     }
 
     /**
@@ -43,7 +106,8 @@ public class StorageService {
                 .setContentType(file.getContentType())
                 .build();
 
-        storage.create(blobInfo, file.getBytes());
+        byte[] content = file.getBytes();
+        observe("upload", () -> storage().create(blobInfo, content));
 
         String url = String.format("gs://%s/%s", bucketName, filename);
         log.info("File uploaded successfully: {}", url);
@@ -63,7 +127,8 @@ public class StorageService {
                 .setContentType(contentType != null ? contentType : file.getContentType())
                 .build();
 
-        storage.create(blobInfo, file.getBytes());
+        byte[] content = file.getBytes();
+        observe("upload", () -> storage().create(blobInfo, content));
 
         return String.format("gs://%s/%s", bucketName, filename);
     }
@@ -92,7 +157,7 @@ public class StorageService {
         String objectName = parts[1];
 
         BlobId blobId = BlobId.of(bucket, objectName);
-        boolean deleted = storage.delete(blobId);
+        boolean deleted = observe("delete", () -> storage().delete(blobId));
 
         if (deleted) {
             log.info("File deleted successfully: {}", gcsUrl);
@@ -118,16 +183,84 @@ public class StorageService {
         BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucket, objectName)).build();
 
         // Generate signed URL valid for specified duration
-        String url = storage.signUrl(
+        String url = observe("sign", () -> storage().signUrl(
                 blobInfo,
                 durationMinutes,
                 java.util.concurrent.TimeUnit.MINUTES
-        ).toString();
+        ).toString());
 
         log.info("Signed URL generated successfully");
         return url;
     }
 
+    /**
+     * Read an object and the generation it was read at.
+     *
+     * @return the object, or null if it does not exist
+     */
+    public StoredObject readObject(String bucket, String name) {
+        return observe("read", () -> {
+            Blob blob = storage().get(BlobId.of(bucket, name));
+            if (blob == null || !blob.exists()) {
+                return null;
+            }
+            byte[] content = storage().readAllBytes(BlobId.of(bucket, name, blob.getGeneration()));
+            return new StoredObject(content, blob.getGeneration());
+        });
+    }
+
+    /**
+     * Write an object, replacing any existing one.
+     *
+     * @param contentEncoding e.g. "gzip" for pre-compressed content, or null
+     * @param cacheControl Cache-Control served with the object, or null
+     */
+    public void writeObject(String bucket, String name, byte[] content, String contentType,
+                            String contentEncoding, String cacheControl) {
+        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucket, name))
+                .setContentType(contentType)
+                .setContentEncoding(contentEncoding)
+                .setCacheControl(cacheControl)
+                .build();
+        observe("write", () -> storage().create(blobInfo, content));
+    }
+
+    /**
+     * Replace an object only if it is still at the given generation, so
+     * concurrent writers cannot overwrite each other's changes unseen. A
+     * single object write is atomic: readers see the old content or the new.
+     *
+     * @param expectedGeneration generation from {@link #readObject}, or 0 if the object must not exist yet
+     * @return false if the object changed in the meantime
+     */
+    public boolean replaceObject(String bucket, String name, byte[] content, String contentType,
+                                 String cacheControl, long expectedGeneration) {
+        BlobId blobId = expectedGeneration == 0 ? BlobId.of(bucket, name) : BlobId.of(bucket, name, expectedGeneration);
+        BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
+                .setContentType(contentType)
+                .setCacheControl(cacheControl)
+                .build();
+        Storage.BlobTargetOption precondition = expectedGeneration == 0
+                ? Storage.BlobTargetOption.doesNotExist()
+                : Storage.BlobTargetOption.generationMatch();
+        try {
+            observe("write", () -> storage().create(blobInfo, content, precondition));
+            return true;
+        } catch (StorageException e) {
+            if (e.getCode() == 412) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Delete an object; deleting a missing object is not an error.
+     */
+    public void deleteObject(String bucket, String name) {
+        observe("delete", () -> storage().delete(BlobId.of(bucket, name)));
+    }
+
     /**
      * Check if a file exists in GCS.
      */
@@ -146,7 +279,13 @@ public class StorageService {
         String bucket = parts[0];
         String objectName = parts[1];
 
-        Blob blob = storage.get(BlobId.of(bucket, objectName));
+        Blob blob = observe("get", () -> storage().get(BlobId.of(bucket, objectName)));
         return blob != null && blob.exists();
     }
+
+    /**
+     * Object content together with its GCS generation.
+     */
+    public record StoredObject(byte[] content, long generation) {
+    }
 }
@@ -0,0 +1,73 @@
+package com.devhub.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Durations of the instrumented steps of the current request, keyed by step
+ * name, rendered as a Server-Timing header. Repeated steps are summed.
+ *
+ * Bound to the request thread by {@link ServerTimingFilter}; steps that run on
+ * other threads (async streaming, change feeds) are not included.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, long[]> steps = new LinkedHashMap<>();
+    private final boolean detailed;
+
+    private RequestTimings(boolean detailed) {
+        this.detailed = detailed;
+    }
+
+    static RequestTimings start(boolean detailed) {
+        RequestTimings timings = new RequestTimings(detailed);
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Timings for the request on this thread, or null outside a request.
+     */
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Whether the client asked for steps that need buffering, such as json.serialize.
+     */
+    public boolean isDetailed() {
+        return detailed;
+    }
+
+    synchronized void record(String step, long nanos) {
+        long[] totals = steps.computeIfAbsent(step, k -> new long[2]);
+        totals[0] += nanos;
+        totals[1]++;
+    }
+
+    /**
+     * Header value, e.g. {@code firestore.query;dur=12.4, json.serialize;dur=0.8, total;dur=14.1}.
+     */
+    synchronized String toHeader() {
+        StringJoiner header = new StringJoiner(", ");
+        steps.forEach((step, totals) -> {
+            String entry = step + ";dur=" + millis(totals[0]);
+            header.add(totals[1] > 1 ? entry + ";desc=\"" + totals[1] + " calls\"" : entry);
+        });
+        header.add("total;dur=" + millis(System.nanoTime() - startNanos));
+        return header.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+}
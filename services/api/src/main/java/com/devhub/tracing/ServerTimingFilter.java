@@ -0,0 +1,110 @@
+package com.devhub.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Collects {@link RequestTimings} for each request and sends them as a
+ * Server-Timing header.
+ *
+ * The header has to go out before the body, so it is added when the body is
+ * first opened (after serialization has been timed, see
+ * {@link TimedJacksonHttpMessageConverter}), or at the end of the request for
+ * responses without a body. Streaming responses carry the steps completed
+ * before the first byte.
+ *
+ * Enabled by devhub.tracing.server-timing.enabled, checked at runtime (the
+ * filter is always registered, so the AOT image honours the setting too).
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    static final String SERVER_TIMING = "Server-Timing";
+
+    // Request header asking for the full breakdown, including json.serialize
+    static final String DETAIL_HEADER = "X-Server-Timing-Detail";
+
+    private final boolean enabled;
+
+    public ServerTimingFilter(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean detailed = request.getHeader(DETAIL_HEADER) != null;
+        TimingResponse timed = new TimingResponse(response, RequestTimings.start(detailed));
+        try {
+            chain.doFilter(request, timed);
+        } finally {
+            RequestTimings.clear();
+            if (!request.isAsyncStarted()) {
+                timed.writeHeader();
+            }
+        }
+    }
+
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestTimings timings;
+        private boolean written;
+
+        TimingResponse(HttpServletResponse response, RequestTimings timings) {
+            super(response);
+            this.timings = timings;
+        }
+
+        synchronized void writeHeader() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            setHeader(SERVER_TIMING, timings.toHeader());
+            // Lets cross-origin pages (the web UI) read the entries
+            setHeader("Timing-Allow-Origin", "*");
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+    }
+}
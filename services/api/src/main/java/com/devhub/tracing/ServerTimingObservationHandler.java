@@ -0,0 +1,35 @@
+package com.devhub.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+
+/**
+ * Adds the duration of every devhub.* observation to the current request's
+ * {@link RequestTimings}, under the observation's contextual name.
+ */
+public class ServerTimingObservationHandler implements ObservationHandler<Observation.Context> {
+
+    private static final String START_KEY = ServerTimingObservationHandler.class.getName() + ".start";
+
+    @Override
+    public void onStart(Observation.Context context) {
+        if (RequestTimings.current() != null) {
+            context.put(START_KEY, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        Long start = context.get(START_KEY);
+        RequestTimings timings = RequestTimings.current();
+        if (start != null && timings != null) {
+            String step = context.getContextualName() != null ? context.getContextualName() : context.getName();
+            timings.record(step, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context.getName() != null && context.getName().startsWith("devhub.");
+    }
+}
@@ -0,0 +1,84 @@
+package com.devhub.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Jackson converter that records JSON serialization as a devhub.serialization
+ * observation ("json.serialize").
+ *
+ * Normally the body is serialized straight to the response, so the
+ * observation covers serialization plus writing, and it reaches the span but
+ * not the Server-Timing header, which goes out as the body starts. Only for
+ * sampled requests, and requests sending X-Server-Timing-Detail, is the body
+ * serialized into a buffer first, so json.serialize is known in time for the
+ * header; that costs a second copy of the body in memory.
+ * Outside a request (e.g. change-feed events), it writes straight through as usual.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final ObservationRegistry registry;
+    private final Tracer tracer;
+
+    /**
+     * @param tracer tells whether the current request is sampled, or null if tracing is unavailable
+     */
+    public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper, ObservationRegistry registry, Tracer tracer) {
+        super(objectMapper);
+        this.registry = registry;
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        if (!timings.isDetailed() && !sampled()) {
+            serialization().observeChecked(() -> super.writeInternal(object, type, outputMessage));
+            return;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        HttpOutputMessage buffered = new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return buffer;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        };
+
+        serialization().observeChecked(() -> super.writeInternal(object, type, buffered));
+
+        outputMessage.getHeaders().setContentLength(buffer.size());
+        buffer.writeTo(outputMessage.getBody());
+    }
+
+    private Observation serialization() {
+        return Observation.createNotStarted("devhub.serialization", registry).contextualName("json.serialize");
+    }
+
+    private boolean sampled() {
+        Span span = tracer != null ? tracer.currentSpan() : null;
+        return span != null && Boolean.TRUE.equals(span.context().sampled());
+    }
+}
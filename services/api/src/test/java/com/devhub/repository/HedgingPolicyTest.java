@@ -0,0 +1,205 @@
+package com.devhub.repository;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.SettableApiFuture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HedgingPolicyTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // The delay gauge only holds its policy weakly
+    private final List<HedgingPolicy> policies = new ArrayList<>();
+
+    @Test
+    void readThatAnswersBeforeTheDelayIsNotHedged() throws Exception {
+        HedgingPolicy policy = policy(10, 10, 100);
+        Reads reads = new Reads();
+        reads.next(done("primary"));
+
+        assertEquals("primary", policy.read(reads));
+        assertEquals(1, reads.issued);
+        assertEquals(1.0, count("devhub.hedge.reads"));
+        assertEquals(0.0, count("devhub.hedge.fired"));
+    }
+
+    @Test
+    void hedgeSentAfterTheDelayCanWin() throws Exception {
+        HedgingPolicy policy = policy(10, 10, 100);
+        Reads reads = new Reads();
+        reads.next(SettableApiFuture.create());
+        reads.next(done("hedge"));
+
+        assertEquals("hedge", policy.read(reads));
+        assertEquals(2, reads.issued);
+        assertEquals(1.0, count("devhub.hedge.fired"));
+        assertEquals(1.0, count("devhub.hedge.won"));
+    }
+
+    @Test
+    void primaryCanStillWinAfterTheHedgeIsSent() throws Exception {
+        HedgingPolicy policy = policy(10, 10, 100);
+        SettableApiFuture<String> primary = SettableApiFuture.create();
+        Reads reads = new Reads();
+        reads.next(primary);
+        reads.next(() -> {
+            // The primary answers just as the hedge goes out
+            primary.set("primary");
+            return SettableApiFuture.create();
+        });
+
+        assertEquals("primary", policy.read(reads));
+        assertEquals(1.0, count("devhub.hedge.fired"));
+        assertEquals(0.0, count("devhub.hedge.won"));
+    }
+
+    @Test
+    void oneFailedReadIsIgnoredWhenTheOtherSucceeds() throws Exception {
+        HedgingPolicy policy = policy(10, 10, 100);
+        SettableApiFuture<String> primary = SettableApiFuture.create();
+        Reads reads = new Reads();
+        reads.next(primary);
+        reads.next(() -> {
+            primary.setException(new IOException("primary failed"));
+            return done("hedge");
+        });
+        assertEquals("hedge", policy.read(reads));
+
+        SettableApiFuture<String> slowPrimary = SettableApiFuture.create();
+        reads.next(slowPrimary);
+        reads.next(() -> {
+            SettableApiFuture<String> hedge = SettableApiFuture.create();
+            hedge.setException(new IOException("hedge failed"));
+            slowPrimary.set("primary");
+            return hedge;
+        });
+        assertEquals("primary", policy.read(reads));
+    }
+
+    @Test
+    void bothReadsFailingReportsTheFirstFailure() {
+        HedgingPolicy policy = policy(10, 10, 100);
+        IOException firstFailure = new IOException("primary failed");
+        SettableApiFuture<String> primary = SettableApiFuture.create();
+        Reads reads = new Reads();
+        reads.next(primary);
+        reads.next(() -> {
+            primary.setException(firstFailure);
+            SettableApiFuture<String> hedge = SettableApiFuture.create();
+            hedge.setException(new IOException("hedge failed"));
+            return hedge;
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> policy.read(reads));
+        assertSame(firstFailure, e.getCause());
+    }
+
+    @Test
+    void withoutBudgetASlowReadWaitsForThePrimary() throws Exception {
+        HedgingPolicy policy = policy(10, 10, 0);
+        SettableApiFuture<String> primary = SettableApiFuture.create();
+        Reads reads = new Reads();
+        reads.next(primary);
+        Thread answer = answerAfter(primary, "primary", 50);
+
+        assertEquals("primary", policy.read(reads));
+        answer.join();
+        assertEquals(1, reads.issued);
+        assertEquals(1.0, count("devhub.hedge.throttled"));
+        assertEquals(0.0, count("devhub.hedge.fired"));
+    }
+
+    @Test
+    void delayIsClampedToTheConfiguredRange() throws Exception {
+        // Reads answer at once, far below the minimum
+        HedgingPolicy fast = policy(40, 80, 0);
+        Reads reads = new Reads();
+        for (int i = 0; i < 10; i++) {
+            reads.next(done("fast"));
+            fast.read(reads);
+        }
+        assertEquals(40.0, delayMillis("fast"));
+
+        // Reads take 30 ms, above the maximum; without budget they are never hedged
+        HedgingPolicy slow = policy("slow", 1, 5, 0);
+        for (int i = 0; i < 3; i++) {
+            SettableApiFuture<String> primary = SettableApiFuture.create();
+            reads.next(primary);
+            Thread answer = answerAfter(primary, "slow", 30);
+            slow.read(reads);
+            answer.join();
+        }
+        assertEquals(5.0, delayMillis("slow"));
+    }
+
+    private HedgingPolicy policy(long minDelayMillis, long maxDelayMillis, double budgetPercent) {
+        return policy("fast", minDelayMillis, maxDelayMillis, budgetPercent);
+    }
+
+    private HedgingPolicy policy(String collection, long minDelayMillis, long maxDelayMillis, double budgetPercent) {
+        HedgingPolicy policy = new HedgingPolicy(collection, 0.95, minDelayMillis, maxDelayMillis, budgetPercent,
+                10, 100, registry);
+        policies.add(policy);
+        return policy;
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+
+    private double delayMillis(String collection) {
+        return registry.get("devhub.hedge.delay").tag("collection", collection).gauge().value();
+    }
+
+    private static ApiFuture<String> done(String value) {
+        SettableApiFuture<String> future = SettableApiFuture.create();
+        future.set(value);
+        return future;
+    }
+
+    private static Thread answerAfter(SettableApiFuture<String> future, String value, long millis) {
+        Thread thread = new Thread(() -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            future.set(value);
+        });
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Hands out the queued futures in order, one per RPC the policy issues.
+     */
+    private static final class Reads implements Supplier<ApiFuture<String>> {
+
+        private final List<Supplier<ApiFuture<String>>> queued = new ArrayList<>();
+        int issued;
+
+        void next(ApiFuture<String> future) {
+            queued.add(() -> future);
+        }
+
+        void next(Supplier<ApiFuture<String>> future) {
+            queued.add(future);
+        }
+
+        @Override
+        public ApiFuture<String> get() {
+            return queued.get(issued++).get();
+        }
+    }
+}
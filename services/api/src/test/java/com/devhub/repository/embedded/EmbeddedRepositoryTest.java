@@ -0,0 +1,83 @@
+package com.devhub.repository.embedded;
+
+import com.devhub.model.PortfolioLink;
+import com.devhub.repository.QuerySpec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddedRepositoryTest {
+
+    private static final QuerySpec BY_RANK = QuerySpec.orderBy("rank", QuerySpec.Direction.ASCENDING);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void explicitNullsSortFirstWithAndWithoutAnIndex() throws Exception {
+        for (Set<String> indexed : List.of(Set.of("rank"), Set.<String>of())) {
+            try (EmbeddedStore store = store(dir.resolve("indexed-" + indexed.size()))) {
+                EmbeddedRepository<PortfolioLink> repository = store.repository("portfolio", PortfolioLink.class, indexed);
+                repository.save("b", link("b", "V"));
+                repository.save("null", link("null", null));
+                repository.save("a", link("a", "A"));
+
+                assertEquals(List.of("null", "a", "b"), ids(repository.query(BY_RANK)), "indexed " + indexed);
+                assertEquals(List.of("b", "a", "null"),
+                        ids(repository.query(QuerySpec.orderBy("rank", QuerySpec.Direction.DESCENDING))));
+                assertEquals(List.of("null", "a"),
+                        ids(repository.query(BY_RANK.whereEqualTo("category", "A"))));
+            }
+        }
+    }
+
+    @Test
+    void documentsSurviveCompactionAndReopen() throws Exception {
+        Path data = dir.resolve("data");
+        try (EmbeddedStore store = store(data)) {
+            EmbeddedRepository<PortfolioLink> repository = store.repository("portfolio", PortfolioLink.class,
+                    Set.of("rank"));
+            for (int i = 0; i < 10; i++) {
+                repository.save("kept", link("kept", "V" + i));
+                repository.save("deleted", link("deleted", "W"));
+            }
+            repository.delete("deleted");
+
+            assertTrue(repository.compactIfNeeded(0));
+            repository.save("after", link("after", "Z"));
+        }
+
+        try (EmbeddedStore store = store(data)) {
+            EmbeddedRepository<PortfolioLink> repository = store.repository("portfolio", PortfolioLink.class,
+                    Set.of("rank"));
+            List<PortfolioLink> links = repository.query(BY_RANK);
+            assertEquals(List.of("kept", "after"), ids(links));
+            assertEquals("V9", links.get(0).getRank());
+        }
+    }
+
+    private static EmbeddedStore store(Path dataDir) throws Exception {
+        return new EmbeddedStore(dataDir, 4096, false, 3600, 0);
+    }
+
+    private static PortfolioLink link(String id, String rank) {
+        PortfolioLink link = new PortfolioLink();
+        link.setTitle(id);
+        link.setUrl("https://example.com/" + id);
+        link.setOrder(0);
+        link.setRank(rank);
+        // Every test link without a rank shares category "A"
+        link.setCategory(rank == null || rank.startsWith("A") ? "A" : "B");
+        return link;
+    }
+
+    private static List<String> ids(List<PortfolioLink> links) {
+        return links.stream().map(PortfolioLink::getId).toList();
+    }
+}
@@ -0,0 +1,167 @@
+package com.devhub.repository.embedded;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class LogFileTest {
+
+    private static final long CAPACITY = 4096;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsSurviveReopen() throws IOException {
+        Path path = dir.resolve("test.log");
+        try (LogFile log = open(path, new ArrayList<>())) {
+            log.append(LogFile.PUT, bytes("a"));
+            log.append(LogFile.DELETE, bytes("b"));
+            log.append(LogFile.PUT, bytes("c"));
+        }
+
+        List<String> records = new ArrayList<>();
+        try (LogFile log = open(path, records)) {
+            assertEquals(List.of("1:a", "2:b", "1:c"), records);
+            assertEquals(3 * (LogFile.HEADER_BYTES + 1), log.size());
+        }
+    }
+
+    @Test
+    void tornTailIsTruncated() throws IOException {
+        Path path = dir.resolve("test.log");
+        int third;
+        try (LogFile log = open(path, new ArrayList<>())) {
+            log.append(LogFile.PUT, bytes("first"));
+            log.append(LogFile.PUT, bytes("second"));
+            third = log.append(LogFile.PUT, bytes("third"));
+        }
+        // Crash halfway through the third payload: the rest of the file is gone
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(third + 2);
+        }
+
+        List<String> records = new ArrayList<>();
+        try (LogFile log = open(path, records)) {
+            assertEquals(List.of("1:first", "1:second"), records);
+            assertEquals(third - LogFile.HEADER_BYTES, log.size());
+            log.append(LogFile.PUT, bytes("fourth"));
+        }
+
+        records.clear();
+        try (LogFile log = open(path, records)) {
+            assertEquals(List.of("1:first", "1:second", "1:fourth"), records);
+        }
+    }
+
+    @Test
+    void recordWithBadChecksumIsRejectedWithEverythingAfterIt() throws IOException {
+        Path path = dir.resolve("test.log");
+        int second;
+        try (LogFile log = open(path, new ArrayList<>())) {
+            log.append(LogFile.PUT, bytes("first"));
+            second = log.append(LogFile.PUT, bytes("second"));
+            log.append(LogFile.PUT, bytes("third"));
+        }
+        writeAt(path, second, bytes("X"));
+
+        List<String> records = new ArrayList<>();
+        try (LogFile log = open(path, records)) {
+            assertEquals(List.of("1:first"), records);
+        }
+
+        // The tail was zeroed, so the third record cannot resurface later
+        byte[] tail = Files.readAllBytes(path);
+        for (int i = second - LogFile.HEADER_BYTES; i < tail.length; i++) {
+            assertEquals(0, tail[i], "byte " + i);
+        }
+        records.clear();
+        try (LogFile log = open(path, records)) {
+            assertEquals(List.of("1:first"), records);
+        }
+    }
+
+    @Test
+    void lengthRunningPastTheFileIsRejected() throws IOException {
+        Path path = dir.resolve("test.log");
+        int second;
+        try (LogFile log = open(path, new ArrayList<>())) {
+            log.append(LogFile.PUT, bytes("first"));
+            second = log.append(LogFile.PUT, bytes("second"));
+        }
+        writeAt(path, second - LogFile.HEADER_BYTES, ByteBuffer.allocate(4).putInt(Integer.MAX_VALUE - 4).array());
+
+        List<String> records = new ArrayList<>();
+        try (LogFile log = open(path, records)) {
+            assertEquals(List.of("1:first"), records);
+            assertEquals(LogFile.HEADER_BYTES + 5, log.size());
+        }
+    }
+
+    @Test
+    void compactionKeepsOnlyTheGivenPayloads() throws IOException {
+        Path path = dir.resolve("test.log");
+        try (LogFile log = open(path, new ArrayList<>())) {
+            for (int i = 0; i < 100; i++) {
+                log.append(LogFile.PUT, bytes("version " + i));
+            }
+
+            int[] offsets = log.compact(List.of(bytes("kept"), bytes("also kept")));
+            assertArrayEquals(bytes("kept"), log.read(offsets[0], 4));
+            assertArrayEquals(bytes("also kept"), log.read(offsets[1], 9));
+            assertEquals(2 * LogFile.HEADER_BYTES + 13, log.size());
+            assertFalse(Files.exists(dir.resolve("test.log.compact")));
+
+            log.append(LogFile.DELETE, bytes("after"));
+        }
+
+        List<String> records = new ArrayList<>();
+        try (LogFile log = open(path, records)) {
+            assertEquals(List.of("1:kept", "1:also kept", "2:after"), records);
+        }
+    }
+
+    @Test
+    void leftoverCompactionFileIsDiscarded() throws IOException {
+        Path path = dir.resolve("test.log");
+        try (LogFile log = open(path, new ArrayList<>())) {
+            log.append(LogFile.PUT, bytes("original"));
+        }
+        // Crash during compaction, before the side file was moved over the log
+        Files.write(dir.resolve("test.log.compact"), bytes("partial compaction"));
+
+        List<String> records = new ArrayList<>();
+        try (LogFile log = open(path, records)) {
+            assertEquals(List.of("1:original"), records);
+        }
+        assertFalse(Files.exists(dir.resolve("test.log.compact")));
+    }
+
+    private static LogFile open(Path path, List<String> records) throws IOException {
+        return LogFile.open(path, CAPACITY, false,
+                (type, offset, payload) -> records.add(type + ":" + new String(payload, StandardCharsets.UTF_8)));
+    }
+
+    private static void writeAt(Path path, long position, byte[] content) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(content), position);
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
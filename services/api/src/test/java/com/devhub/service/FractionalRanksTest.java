@@ -0,0 +1,122 @@
+package com.devhub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FractionalRanksTest {
+
+    private static final int INSERTS = 200;
+
+    @Test
+    void openEndsSplitTheRemainingRange() {
+        assertEquals("V", FractionalRanks.between(null, null));
+        assertBetween(null, FractionalRanks.between(null, "V"), "V");
+        assertBetween("V", FractionalRanks.between("V", null), null);
+        assertBetween(null, FractionalRanks.between(null, "1"), "1");
+        assertBetween("z", FractionalRanks.between("z", null), null);
+    }
+
+    @Test
+    void adjacentFirstDigitsExtendTheLowerKey() {
+        assertBetween("1zzz", FractionalRanks.between("1zzz", "2"), "2");
+        assertBetween("1", FractionalRanks.between("1", "2"), "2");
+        assertBetween("1", FractionalRanks.between("1", "2V"), "2V");
+    }
+
+    @Test
+    void lowerKeyLongerThanTheSharedPrefix() {
+        assertBetween("AB1x", FractionalRanks.between("AB1x", "AB2"), "AB2");
+        assertBetween("ABzz", FractionalRanks.between("ABzz", "AC"), "AC");
+        assertBetween("A1", FractionalRanks.between("A1", "A1V"), "A1V");
+    }
+
+    @Test
+    void lowerNotBeforeUpperIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> FractionalRanks.between("V", "V"));
+        assertThrows(IllegalArgumentException.class, () -> FractionalRanks.between("W", "V"));
+        assertThrows(IllegalArgumentException.class, () -> FractionalRanks.between("V0", null));
+        assertThrows(IllegalArgumentException.class, () -> FractionalRanks.between(null, "V!"));
+    }
+
+    @Test
+    void repeatedInsertsAtTheFrontStayOrdered() {
+        String first = "V";
+        for (int i = 0; i < INSERTS; i++) {
+            String key = FractionalRanks.between(null, first);
+            assertBetween(null, key, first);
+            first = key;
+        }
+    }
+
+    @Test
+    void repeatedInsertsAtTheBackStayOrdered() {
+        String last = "V";
+        for (int i = 0; i < INSERTS; i++) {
+            String key = FractionalRanks.between(last, null);
+            assertBetween(last, key, null);
+            last = key;
+        }
+    }
+
+    @Test
+    void repeatedInsertsInTheMiddleStayOrdered() {
+        // Alternate sides so keys close in from both neighbors
+        String lower = FractionalRanks.fromOrder(1);
+        String upper = FractionalRanks.fromOrder(2);
+        for (int i = 0; i < INSERTS; i++) {
+            String key = FractionalRanks.between(lower, upper);
+            assertBetween(lower, key, upper);
+            if (i % 2 == 0) {
+                upper = key;
+            } else {
+                lower = key;
+            }
+        }
+
+        // Always directly after the same key
+        String after = FractionalRanks.fromOrder(1);
+        String next = FractionalRanks.fromOrder(2);
+        for (int i = 0; i < INSERTS; i++) {
+            String key = FractionalRanks.between(after, next);
+            assertBetween(after, key, next);
+            next = key;
+        }
+    }
+
+    @Test
+    void fromOrderKeepsIntegerOrder() {
+        List<String> keys = new ArrayList<>();
+        for (int order : new int[] {0, 1, 2, 61, 62, 63, 1000, 3843, 3844, 238327, 238328, 14776335}) {
+            keys.add(FractionalRanks.fromOrder(order));
+        }
+        for (int i = 1; i < keys.size(); i++) {
+            assertBetween(keys.get(i - 1), keys.get(i), null);
+        }
+
+        // Clamped to 0 and to 62^4 - 1
+        String max = FractionalRanks.fromOrder(14776335);
+        assertEquals("zzzzV", max);
+        assertEquals(max, FractionalRanks.fromOrder(14776336));
+        assertEquals(max, FractionalRanks.fromOrder(Integer.MAX_VALUE));
+        assertEquals("0000V", FractionalRanks.fromOrder(0));
+        assertEquals("0000V", FractionalRanks.fromOrder(-5));
+        assertEquals("0000V", FractionalRanks.fromOrder(null));
+    }
+
+    private static void assertBetween(String lower, String key, String upper) {
+        assertTrue(FractionalRanks.isValid(key), "valid: " + key);
+        assertTrue(key.charAt(key.length() - 1) != '0', "trailing zero: " + key);
+        if (lower != null) {
+            assertTrue(lower.compareTo(key) < 0, lower + " < " + key);
+        }
+        if (upper != null) {
+            assertTrue(key.compareTo(upper) < 0, key + " < " + upper);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.devhub.service;
+
+import com.devhub.model.LineEdit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LineDiffTest {
+
+    @Test
+    void emptyTextRoundTrips() {
+        assertRoundTrip("", "");
+        assertRoundTrip("", "a\nb");
+        assertRoundTrip("a\nb", "");
+        assertEquals(List.of(), LineDiff.diff(LineDiff.split("same"), LineDiff.split("same")));
+    }
+
+    @Test
+    void insertOnlyIsOneHunkWithoutRemovals() {
+        List<LineEdit> edits = assertRoundTrip("a\nb\nc", "a\nb\nx\ny\nc");
+
+        assertEquals(1, edits.size());
+        assertEquals(2, edits.get(0).getAt());
+        assertEquals(0, edits.get(0).getRemoveCount());
+        assertEquals(List.of("x", "y"), edits.get(0).getInsert());
+    }
+
+    @Test
+    void deleteOnlyIsOneHunkWithoutInsertions() {
+        List<LineEdit> edits = assertRoundTrip("a\nb\nc\nd", "a\nd");
+
+        assertEquals(1, edits.size());
+        assertEquals(1, edits.get(0).getAt());
+        assertEquals(2, edits.get(0).getRemoveCount());
+        assertEquals(List.of(), edits.get(0).getInsert());
+    }
+
+    @Test
+    void trailingNewlineIsKept() {
+        assertRoundTrip("a\nb", "a\nb\n");
+        assertRoundTrip("a\nb\n", "a\nb");
+        assertRoundTrip("a\n", "b\n");
+    }
+
+    @Test
+    void crlfLineEndingsAreKept() {
+        assertRoundTrip("a\r\nb\r\nc\r\n", "a\r\nx\r\nc\r\n");
+        assertRoundTrip("a\r\nb", "a\nb");
+    }
+
+    @Test
+    void scatteredChangesRoundTrip() {
+        assertRoundTrip("1\n2\n3\n4\n5\n6\n7\n8", "0\n1\n3\n4\nfour\n5\n7\n8\n9");
+    }
+
+    @Test
+    void editsPastTheMaximumDistanceReplaceTheMiddle() {
+        List<String> before = new ArrayList<>();
+        List<String> after = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            before.add("old " + i);
+            after.add("new " + i);
+        }
+        before.add("kept");
+        after.add("kept");
+
+        List<LineEdit> edits = LineDiff.diff(before, after);
+        assertEquals(1, edits.size());
+        assertEquals(after, LineDiff.apply(before, edits));
+    }
+
+    @Test
+    void editsThatDoNotFitAreRejected() {
+        List<LineEdit> edits = List.of(new LineEdit(2, 3, new ArrayList<>()));
+
+        assertThrows(IllegalStateException.class, () -> LineDiff.apply(LineDiff.split("a\nb"), edits));
+    }
+
+    private static List<LineEdit> assertRoundTrip(String before, String after) {
+        List<LineEdit> edits = LineDiff.diff(LineDiff.split(before), LineDiff.split(after));
+        assertEquals(after, LineDiff.join(LineDiff.apply(LineDiff.split(before), edits)));
+        return edits;
+    }
+}
@@ -0,0 +1,86 @@
+package com.devhub.service;
+
+import com.devhub.model.PortfolioLink;
+import com.devhub.repository.embedded.EmbeddedStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PortfolioServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private EmbeddedStore store;
+    private PortfolioService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new EmbeddedStore(dir, 4096, false, 3600, 0);
+        service = new PortfolioService();
+        ReflectionTestUtils.setField(service, "portfolioRepository",
+                store.repository("portfolio", PortfolioLink.class, Set.of("order", "rank", "category")));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close();
+    }
+
+    @Test
+    void legacyClientThatEditsOnlyTheOrderMovesTheLink() throws Exception {
+        String a = service.createLink(link("a", 1));
+        String b = service.createLink(link("b", 2));
+        String c = service.createLink(link("c", 3));
+
+        // GET, change the order, PUT everything else back as read
+        PortfolioLink read = service.getLinkById(c);
+        read.setOrder(0);
+        service.updateLink(c, read);
+
+        assertEquals(List.of(c, a, b), ids(service.getAllLinks()));
+        assertEquals(FractionalRanks.fromOrder(0), service.getLinkById(c).getRank());
+    }
+
+    @Test
+    void updateWithoutRankOrOrderChangeKeepsAMovedLinkInPlace() throws Exception {
+        String a = service.createLink(link("a", 1));
+        String b = service.createLink(link("b", 2));
+        service.moveLink(a, b, null, null);
+
+        PortfolioLink read = service.getLinkById(a);
+        read.setRank(null);
+        read.setTitle("renamed");
+        service.updateLink(a, read);
+
+        assertEquals(List.of(b, a), ids(service.getAllLinks()));
+    }
+
+    @Test
+    void moveNextToMissingNeighborIsAConflict() throws Exception {
+        String a = service.createLink(link("a", 1));
+
+        assertThrows(MoveConflictException.class, () -> service.moveLink(a, "missing", null, null));
+    }
+
+    private static PortfolioLink link(String title, int order) {
+        PortfolioLink link = new PortfolioLink();
+        link.setTitle(title);
+        link.setUrl("https://example.com/" + title);
+        link.setOrder(order);
+        return link;
+    }
+
+    private static List<String> ids(List<PortfolioLink> links) {
+        return links.stream().map(PortfolioLink::getId).toList();
+    }
+}
@@ -0,0 +1,120 @@
+package com.devhub.service;
+
+import com.devhub.model.CodeSnippet;
+import com.devhub.model.RevisionSummary;
+import com.devhub.model.SnippetRevision;
+import com.devhub.repository.embedded.EmbeddedStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SnippetRevisionServiceTest {
+
+    private static final List<String> CODE = List.of(
+            "line 1\nline 2\nline 3\nline 4\nline 5\nline 6\nline 7\nline 8\n",
+            "line 1\nline 2\nline 3\nline 4\nline 5\nline 6\nline 7\nline 8\nline 9\n",
+            "line 0\nline 1\nline 2\nline 3\nline 4\nline 5\nline 6\nline 7\nline 8\nline 9\n",
+            "line 0\nline 1\nline 2\nline 4\nline 5\nline 6\nline 7\nline 8\nline 9\n",
+            "line 0\nline 1\nline 2\nline 4\nline 5\nline 6\nline 7\nline 8\nline 9",
+            "line 0\r\nline 1\nline 2\nline 4\nline 5\nline 6\nline 7\nline 8\nline 9",
+            "line 0\r\nline 1\nline 2\nline 4\nline 5\nline 6\nline 7\nline 8\nline 9\nline 10");
+
+    @TempDir
+    Path dir;
+
+    private EmbeddedStore store;
+    private SnippetRevisionService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new EmbeddedStore(dir, 4096, false, 3600, 0);
+        service = new SnippetRevisionService();
+        ReflectionTestUtils.setField(service, "revisionRepository",
+                store.repository("snippetRevisions", SnippetRevision.class, Set.of("snippetId", "revision")));
+        ReflectionTestUtils.setField(service, "snapshotInterval", 3);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close();
+    }
+
+    @Test
+    void everyRevisionIsRebuiltFromItsSnapshotAndDeltas() throws Exception {
+        recordAll("s1");
+
+        for (int revision = 1; revision <= CODE.size(); revision++) {
+            assertEquals(CODE.get(revision - 1), service.getVersion("s1", revision).getCode(), "revision " + revision);
+        }
+        assertNull(service.getVersion("s1", CODE.size() + 1));
+
+        // Revisions 1, 4 and 7 are the scheduled snapshots for an interval of 3
+        List<RevisionSummary> summaries = service.listRevisions("s1");
+        assertEquals(List.of(7, 6, 5, 4, 3, 2, 1), summaries.stream().map(RevisionSummary::getRevision).toList());
+        assertEquals(List.of(true, false, false, true, false, false, true),
+                summaries.stream().map(RevisionSummary::isSnapshot).toList());
+    }
+
+    @Test
+    void deleteHistoryRemovesOnlyThatSnippetsRevisions() throws Exception {
+        recordAll("s1");
+        recordAll("s2");
+
+        service.deleteHistory("s1");
+
+        assertEquals(List.of(), service.listRevisions("s1"));
+        assertEquals(CODE.size(), service.listRevisions("s2").size());
+        assertEquals(CODE.get(4), service.getVersion("s2", 5).getCode());
+    }
+
+    @Test
+    void metadataOnlyUpdatesRecordNoRevision() throws Exception {
+        SnippetService snippets = new SnippetService();
+        ReflectionTestUtils.setField(snippets, "snippetRepository",
+                store.repository("snippets", CodeSnippet.class, Set.of("createdAt", "language")));
+        ReflectionTestUtils.setField(snippets, "revisionService", service);
+
+        CodeSnippet snippet = new CodeSnippet();
+        snippet.setTitle("title");
+        snippet.setCode(CODE.get(0));
+        snippet.setLanguage("java");
+        snippet.setTags(List.of("a"));
+        String id = snippets.createSnippet(snippet);
+
+        // PUT that only publishes the snippet and sets its category
+        CodeSnippet read = snippets.getSnippetById(id);
+        read.setIsPublic(true);
+        read.setCategory("utilities");
+        snippets.updateSnippet(id, read);
+
+        // PATCH that sets a revisioned field to the value it already has
+        snippets.patchSnippet(id, Map.of("title", "title", "author", "someone"), null);
+
+        assertEquals(List.of(1), service.listRevisions(id).stream().map(RevisionSummary::getRevision).toList());
+        assertEquals(1, snippets.getSnippetById(id).getRevision());
+
+        snippets.patchSnippet(id, Map.of("title", "renamed"), null);
+        assertEquals(List.of(2, 1), service.listRevisions(id).stream().map(RevisionSummary::getRevision).toList());
+    }
+
+    private void recordAll(String snippetId) throws Exception {
+        CodeSnippet previous = null;
+        for (int revision = 1; revision <= CODE.size(); revision++) {
+            CodeSnippet current = new CodeSnippet();
+            current.setTitle("title " + revision);
+            current.setCode(CODE.get(revision - 1));
+            service.record(snippetId, revision, previous, current);
+            previous = current;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.devhub.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop driver: issues requests for each scenario at a fixed arrival rate.
+ *
+ * Latency is measured from the request's scheduled start time, not the time it
+ * was actually sent, so a stalled server cannot hide queueing delay by slowing
+ * the generator down (coordinated omission). Requests are built on the single
+ * scheduling thread from one seeded random source, which keeps the request
+ * sequence reproducible across runs.
+ */
+public class ArrivalRateDriver {
+
+    private final HttpClient client;
+    private final RequestFactory requests;
+    private final LoadTestConfig config;
+
+    private final Map<Endpoint, LatencyRecorder> recorders = new EnumMap<>(Endpoint.class);
+    private final Map<Scenario, Long> issued = new EnumMap<>(Scenario.class);
+
+    public ArrivalRateDriver(HttpClient client, RequestFactory requests, LoadTestConfig config) {
+        this.client = client;
+        this.requests = requests;
+        this.config = config;
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new LatencyRecorder());
+        }
+    }
+
+    public void run(SplittableRandom random) throws InterruptedException {
+        Scenario[] scenarios = Scenario.values();
+        long[] interval = new long[scenarios.length];
+        long[] next = new long[scenarios.length];
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+
+        for (int i = 0; i < scenarios.length; i++) {
+            double rate = config.rate(scenarios[i]);
+            interval[i] = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : Long.MAX_VALUE;
+            next[i] = rate > 0 ? start : Long.MAX_VALUE;
+            issued.put(scenarios[i], 0L);
+        }
+
+        int maxInFlight = config.maxInFlight();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        System.out.printf("Driving load for %ds (+%ds warm-up)...%n", config.durationSeconds(), config.warmupSeconds());
+        while (true) {
+            int due = 0;
+            for (int i = 1; i < scenarios.length; i++) {
+                if (next[i] < next[due]) {
+                    due = i;
+                }
+            }
+            long intended = next[due];
+            if (intended >= end) {
+                break;
+            }
+            next[due] += interval[due];
+
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Endpoint endpoint = scenarios[due].pick(random);
+            HttpRequest request = requests.build(endpoint, random);
+            boolean measured = intended >= measureFrom;
+            LatencyRecorder recorder = recorders.get(endpoint);
+
+            if (measured) {
+                issued.merge(scenarios[due], 1L, Long::sum);
+            }
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    recorder.recordDropped();
+                }
+                continue;
+            }
+
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        if (measured) {
+                            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+                            recorder.record(micros, error == null && response.statusCode() < 400);
+                        }
+                    });
+        }
+
+        // Let outstanding requests finish so their latencies are counted
+        if (!inFlight.tryAcquire(maxInFlight, config.requestTimeoutMs() + 1000, TimeUnit.MILLISECONDS)) {
+            System.out.println("Warning: some requests were still in flight at the end of the run");
+        }
+    }
+
+    public Map<Endpoint, LatencyRecorder> recorders() {
+        return recorders;
+    }
+
+    public long issued(Scenario scenario) {
+        return issued.getOrDefault(scenario, 0L);
+    }
+}
@@ -0,0 +1,104 @@
+package com.devhub.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic dataset: generates snippet and portfolio link bodies
+ * from a seed and remembers the IDs the API assigned when they were seeded.
+ */
+public class Dataset {
+
+    static final String[] LANGUAGES = {"java", "python", "javascript", "typescript", "go", "rust"};
+    static final String[] TAGS = {"algorithms", "utilities", "gcp", "kubernetes", "spring", "testing", "react"};
+    static final String[] SNIPPET_CATEGORIES = {"algorithms", "utilities", "patterns", "devops"};
+    static final String[] LINK_CATEGORIES = {"GitHub", "LinkedIn", "Blog", "Talks"};
+
+    private final int codeBytes;
+    private final double publicRatio;
+
+    private final List<String> snippetIds = new ArrayList<>();
+    private final List<String> linkIds = new ArrayList<>();
+
+    public Dataset(int codeBytes, double publicRatio) {
+        this.codeBytes = codeBytes;
+        this.publicRatio = publicRatio;
+    }
+
+    public Map<String, Object> newSnippet(SplittableRandom random) {
+        Map<String, Object> snippet = new LinkedHashMap<>();
+        int n = random.nextInt(1_000_000);
+        snippet.put("title", "Load test snippet " + n);
+        snippet.put("code", code(random, codeBytes));
+        snippet.put("language", pick(random, LANGUAGES));
+        snippet.put("tags", List.of(pick(random, TAGS), pick(random, TAGS)));
+        snippet.put("category", pick(random, SNIPPET_CATEGORIES));
+        snippet.put("isPublic", random.nextDouble() < publicRatio);
+        snippet.put("description", "Generated by the load-test harness");
+        snippet.put("author", "loadtest");
+        return snippet;
+    }
+
+    public Map<String, Object> newLink(SplittableRandom random, int order) {
+        Map<String, Object> link = new LinkedHashMap<>();
+        link.put("title", "Load test link " + order);
+        link.put("url", "https://example.com/" + order);
+        link.put("order", order);
+        link.put("category", pick(random, LINK_CATEGORIES));
+        link.put("icon", "link");
+        link.put("description", "Generated by the load-test harness");
+        return link;
+    }
+
+    /**
+     * Pseudo-source text of roughly the requested size.
+     */
+    public static String code(SplittableRandom random, int bytes) {
+        StringBuilder sb = new StringBuilder(bytes + 64);
+        while (sb.length() < bytes) {
+            sb.append("int v").append(random.nextInt(10_000))
+                    .append(" = compute(").append(random.nextInt(100)).append(");\n");
+        }
+        sb.setLength(bytes);
+        return sb.toString();
+    }
+
+    public static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    public void addSnippetId(String id) {
+        snippetIds.add(id);
+    }
+
+    public void addLinkId(String id) {
+        linkIds.add(id);
+    }
+
+    public String randomSnippetId(SplittableRandom random) {
+        return snippetIds.get(random.nextInt(snippetIds.size()));
+    }
+
+    public List<String> randomSnippetIds(SplittableRandom random, int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(randomSnippetId(random));
+        }
+        return ids;
+    }
+
+    public String randomLinkId(SplittableRandom random) {
+        return linkIds.get(random.nextInt(linkIds.size()));
+    }
+
+    public int snippetCount() {
+        return snippetIds.size();
+    }
+
+    public int linkCount() {
+        return linkIds.size();
+    }
+}
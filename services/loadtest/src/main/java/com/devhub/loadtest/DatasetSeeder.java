@@ -0,0 +1,45 @@
+package com.devhub.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Seeds the API with the configured number of snippets and portfolio links
+ * through the public REST endpoints, recording the assigned IDs.
+ */
+public class DatasetSeeder {
+
+    private final HttpClient client;
+    private final RequestFactory requests;
+
+    public DatasetSeeder(HttpClient client, RequestFactory requests) {
+        this.client = client;
+        this.requests = requests;
+    }
+
+    public void seed(Dataset dataset, int snippets, int links, SplittableRandom random)
+            throws IOException, InterruptedException {
+        System.out.printf("Seeding %d snippets and %d portfolio links...%n", snippets, links);
+
+        for (int i = 0; i < snippets; i++) {
+            dataset.addSnippetId(create("/api/snippets", dataset.newSnippet(random)));
+        }
+        for (int i = 0; i < links; i++) {
+            dataset.addLinkId(create("/api/portfolio", dataset.newLink(random, i)));
+        }
+
+        System.out.printf("Seeded %d snippets and %d portfolio links%n", dataset.snippetCount(), dataset.linkCount());
+    }
+
+    private String create(String path, Map<String, Object> body) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(requests.json("POST", path, body),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            throw new IOException("Seeding " + path + " failed with HTTP " + response.statusCode());
+        }
+        return response.body().trim();
+    }
+}
@@ -0,0 +1,54 @@
+package com.devhub.loadtest;
+
+/**
+ * API endpoints exercised by the load test, keyed by route template so that
+ * results aggregate per controller method rather than per concrete URL.
+ */
+public enum Endpoint {
+
+    LIST_SNIPPETS("SnippetsController", "GET", "/api/snippets"),
+    LIST_PUBLIC_SNIPPETS("SnippetsController", "GET", "/api/snippets/public"),
+    SNIPPETS_BY_LANGUAGE("SnippetsController", "GET", "/api/snippets/language/{language}"),
+    SNIPPETS_BY_TAG("SnippetsController", "GET", "/api/snippets/tag/{tag}"),
+    GET_SNIPPET("SnippetsController", "GET", "/api/snippets/{id}"),
+    MULTI_GET_SNIPPETS("SnippetsController", "GET", "/api/snippets?ids={ids}"),
+    CREATE_SNIPPET("SnippetsController", "POST", "/api/snippets"),
+    UPDATE_SNIPPET("SnippetsController", "PUT", "/api/snippets/{id}"),
+    PATCH_SNIPPET("SnippetsController", "PATCH", "/api/snippets/{id}"),
+    UPLOAD_SNIPPET("SnippetsController", "POST", "/api/snippets/upload"),
+
+    LIST_PORTFOLIO("PortfolioController", "GET", "/api/portfolio"),
+    PORTFOLIO_BY_CATEGORY("PortfolioController", "GET", "/api/portfolio/category/{category}"),
+    GET_PORTFOLIO_LINK("PortfolioController", "GET", "/api/portfolio/{id}"),
+    CREATE_PORTFOLIO_LINK("PortfolioController", "POST", "/api/portfolio"),
+    UPDATE_PORTFOLIO_LINK("PortfolioController", "PUT", "/api/portfolio/{id}");
+
+    private final String controller;
+    private final String method;
+    private final String route;
+
+    Endpoint(String controller, String method, String route) {
+        this.controller = controller;
+        this.method = method;
+        this.route = route;
+    }
+
+    public String controller() {
+        return controller;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public String route() {
+        return route;
+    }
+
+    /**
+     * Stable report label, e.g. "GET /api/snippets/{id}".
+     */
+    public String label() {
+        return method + " " + route;
+    }
+}
@@ -0,0 +1,80 @@
+package com.devhub.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Collects raw latency samples (microseconds) for one endpoint.
+ *
+ * Samples are kept exactly rather than bucketed so p999 is precise for the
+ * run sizes this harness targets (minutes at tens to hundreds of RPS).
+ */
+public class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private long errors;
+    private long dropped;
+
+    public synchronized void record(long micros, boolean success) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = micros;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    public synchronized void recordDropped() {
+        dropped++;
+    }
+
+    public synchronized Snapshot snapshot() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return new Snapshot(sorted, errors, dropped);
+    }
+
+    /**
+     * Immutable, sorted view of the samples.
+     */
+    public static final class Snapshot {
+
+        private final long[] sorted;
+        private final long errors;
+        private final long dropped;
+
+        private Snapshot(long[] sorted, long errors, long dropped) {
+            this.sorted = sorted;
+            this.errors = errors;
+            this.dropped = dropped;
+        }
+
+        public int count() {
+            return sorted.length;
+        }
+
+        public long errors() {
+            return errors;
+        }
+
+        public long dropped() {
+            return dropped;
+        }
+
+        /**
+         * Nearest-rank percentile in milliseconds, or 0 when there are no samples.
+         */
+        public double percentileMs(double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1000.0;
+        }
+
+        public double maxMs() {
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000.0;
+        }
+    }
+}
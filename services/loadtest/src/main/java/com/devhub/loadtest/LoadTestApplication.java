@@ -0,0 +1,109 @@
+package com.devhub.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Load-test harness for the Developer Hub API.
+ *
+ * Seeds a deterministic dataset, drives mixed read/write/upload traffic at
+ * fixed arrival rates and writes p50/p99/p999 latency and throughput per
+ * SnippetsController/PortfolioController endpoint to a JSON report.
+ *
+ * Usage: java -jar devhub-loadtest.jar [--config=file] [--key=value ...]
+ * See tools/loadtest.sh for running against the Firestore and GCS emulators.
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        ObjectMapper mapper = new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(config.requestTimeoutMs()))
+                .build();
+
+        SplittableRandom random = new SplittableRandom(config.seed());
+        Dataset dataset = new Dataset(config.codeBytes(), config.publicRatio());
+        RequestFactory requests = new RequestFactory(config, dataset, mapper);
+
+        new DatasetSeeder(client, requests).seed(dataset, config.snippets(), config.portfolioLinks(), random);
+        if (dataset.snippetCount() == 0 || dataset.linkCount() == 0) {
+            throw new IllegalArgumentException("dataset.snippets and dataset.portfolio-links must be at least 1");
+        }
+
+        Instant startedAt = Instant.now();
+        ArrivalRateDriver driver = new ArrivalRateDriver(client, requests, config);
+        driver.run(random);
+
+        LoadTestReport report = buildReport(config, startedAt, driver);
+        mapper.writeValue(config.output().toFile(), report);
+        printSummary(report);
+        System.out.printf("%nResults written to %s%n", config.output().toAbsolutePath());
+
+        if (config.compareWith() != null) {
+            LoadTestReport baseline = mapper.readValue(config.compareWith().toFile(), LoadTestReport.class);
+            List<String> regressions = ReportComparison.compare(baseline, report, config.maxRegressionPercent());
+            if (!regressions.isEmpty()) {
+                System.out.printf("%np99 regressed by more than %.0f%% on: %s%n",
+                        config.maxRegressionPercent(), regressions);
+                System.exit(1);
+            }
+        }
+    }
+
+    private static LoadTestReport buildReport(LoadTestConfig config, Instant startedAt, ArrivalRateDriver driver) {
+        int seconds = config.durationSeconds();
+
+        List<LoadTestReport.ScenarioResult> scenarios = new ArrayList<>();
+        for (Scenario scenario : Scenario.values()) {
+            long issued = driver.issued(scenario);
+            scenarios.add(new LoadTestReport.ScenarioResult(scenario.key(), config.rate(scenario), issued,
+                    LoadTestReport.round((double) issued / seconds)));
+        }
+
+        List<LoadTestReport.EndpointResult> endpoints = new ArrayList<>();
+        for (Map.Entry<Endpoint, LatencyRecorder> entry : driver.recorders().entrySet()) {
+            Endpoint endpoint = entry.getKey();
+            LatencyRecorder.Snapshot snapshot = entry.getValue().snapshot();
+            if (snapshot.count() == 0 && snapshot.dropped() == 0) {
+                continue;
+            }
+            endpoints.add(new LoadTestReport.EndpointResult(
+                    endpoint.label(),
+                    endpoint.controller(),
+                    snapshot.count(),
+                    snapshot.errors(),
+                    snapshot.dropped(),
+                    LoadTestReport.round((double) (snapshot.count() - snapshot.errors()) / seconds),
+                    LoadTestReport.round(snapshot.percentileMs(50)),
+                    LoadTestReport.round(snapshot.percentileMs(99)),
+                    LoadTestReport.round(snapshot.percentileMs(99.9)),
+                    LoadTestReport.round(snapshot.maxMs())));
+        }
+
+        return new LoadTestReport(LoadTestReport.SCHEMA_VERSION, startedAt.toString(), seconds,
+                config.asMap(), scenarios, endpoints);
+    }
+
+    private static void printSummary(LoadTestReport report) {
+        System.out.printf("%n%-45s %8s %7s %8s %9s %9s %9s%n",
+                "Endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        for (LoadTestReport.EndpointResult result : report.endpoints()) {
+            System.out.printf("%-45s %8d %7d %8.1f %9.2f %9.2f %9.2f%n",
+                    result.endpoint(), result.requests(), result.errors(), result.throughputPerSecond(),
+                    result.p50Ms(), result.p99Ms(), result.p999Ms());
+        }
+    }
+}
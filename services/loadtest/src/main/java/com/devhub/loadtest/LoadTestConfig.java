@@ -0,0 +1,151 @@
+package com.devhub.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Load-test configuration.
+ *
+ * Resolved from the bundled loadtest.properties, then an optional --config=file,
+ * then --key=value command-line overrides (last one wins).
+ */
+public class LoadTestConfig {
+
+    private final Properties properties;
+
+    private LoadTestConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    public static LoadTestConfig fromArgs(String[] args) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream defaults = LoadTestConfig.class.getResourceAsStream("/loadtest.properties")) {
+            if (defaults != null) {
+                properties.load(defaults);
+            }
+        }
+
+        Properties overrides = new Properties();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            overrides.setProperty(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        String configFile = overrides.getProperty("config");
+        if (configFile != null) {
+            try (Reader reader = Files.newBufferedReader(Path.of(configFile))) {
+                properties.load(reader);
+            }
+        }
+        properties.putAll(overrides);
+        return new LoadTestConfig(properties);
+    }
+
+    public String baseUrl() {
+        String url = get("base-url");
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    public long requestTimeoutMs() {
+        return getLong("request-timeout-ms");
+    }
+
+    public long seed() {
+        return getLong("seed");
+    }
+
+    public int snippets() {
+        return getInt("dataset.snippets");
+    }
+
+    public int portfolioLinks() {
+        return getInt("dataset.portfolio-links");
+    }
+
+    public int codeBytes() {
+        return getInt("dataset.code-bytes");
+    }
+
+    public double publicRatio() {
+        return getDouble("dataset.public-ratio");
+    }
+
+    public int warmupSeconds() {
+        return getInt("warmup-seconds");
+    }
+
+    public int durationSeconds() {
+        return getInt("duration-seconds");
+    }
+
+    public double rate(Scenario scenario) {
+        return getDouble("scenario." + scenario.key() + ".rate");
+    }
+
+    public int uploadFileBytes() {
+        return getInt("scenario.upload.file-bytes");
+    }
+
+    public int maxInFlight() {
+        return getInt("max-in-flight");
+    }
+
+    public Path output() {
+        return Path.of(get("output"));
+    }
+
+    public Path compareWith() {
+        String value = properties.getProperty("compare-with", "").trim();
+        return value.isEmpty() ? null : Path.of(value);
+    }
+
+    public double maxRegressionPercent() {
+        return getDouble("compare.max-regression-percent");
+    }
+
+    /**
+     * Effective workload configuration, sorted, recorded in the report so runs
+     * are reproducible. Output and comparison settings are left out so they do
+     * not show up as differences between runs.
+     */
+    public Map<String, String> asMap() {
+        Map<String, String> map = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            map.put(key, properties.getProperty(key));
+        }
+        map.remove("config");
+        map.remove("output");
+        map.remove("compare-with");
+        map.remove("compare.max-regression-percent");
+        return map;
+    }
+
+    private String get(String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing load-test property: " + key);
+        }
+        return value.trim();
+    }
+
+    private int getInt(String key) {
+        return Integer.parseInt(get(key));
+    }
+
+    private long getLong(String key) {
+        return Long.parseLong(get(key));
+    }
+
+    private double getDouble(String key) {
+        return Double.parseDouble(get(key));
+    }
+}
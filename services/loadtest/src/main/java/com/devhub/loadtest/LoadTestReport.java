@@ -0,0 +1,52 @@
+package com.devhub.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Machine-readable result of one load-test run.
+ *
+ * Field and list order are fixed (endpoints and scenarios follow enum order)
+ * so two report files can be compared with a plain text diff as well as with
+ * {@link ReportComparison}.
+ */
+public record LoadTestReport(
+        int schemaVersion,
+        String startedAt,
+        int measuredSeconds,
+        Map<String, String> config,
+        List<ScenarioResult> scenarios,
+        List<EndpointResult> endpoints) {
+
+    public static final int SCHEMA_VERSION = 1;
+
+    /**
+     * Target versus achieved arrival rate for one scenario.
+     */
+    public record ScenarioResult(
+            String scenario,
+            double targetRate,
+            long issued,
+            double achievedRate) {
+    }
+
+    /**
+     * Latency and throughput for one controller endpoint.
+     */
+    public record EndpointResult(
+            String endpoint,
+            String controller,
+            long requests,
+            long errors,
+            long dropped,
+            double throughputPerSecond,
+            double p50Ms,
+            double p99Ms,
+            double p999Ms,
+            double maxMs) {
+    }
+
+    static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+}
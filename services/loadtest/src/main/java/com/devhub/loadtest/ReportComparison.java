@@ -0,0 +1,52 @@
+package com.devhub.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Compares a run against a baseline report, endpoint by endpoint.
+ */
+public class ReportComparison {
+
+    private ReportComparison() {
+    }
+
+    /**
+     * Print per-endpoint deltas and return the endpoints whose p99 regressed by
+     * more than the given percentage.
+     */
+    public static List<String> compare(LoadTestReport baseline, LoadTestReport current, double maxRegressionPercent) {
+        Map<String, LoadTestReport.EndpointResult> before = baseline.endpoints().stream()
+                .collect(Collectors.toMap(LoadTestReport.EndpointResult::endpoint, Function.identity()));
+        List<String> regressions = new ArrayList<>();
+
+        System.out.printf("%n%-45s %18s %18s %18s %18s%n", "Endpoint", "p50 ms", "p99 ms", "p999 ms", "req/s");
+        for (LoadTestReport.EndpointResult after : current.endpoints()) {
+            LoadTestReport.EndpointResult base = before.get(after.endpoint());
+            if (base == null || base.requests() == 0 || after.requests() == 0) {
+                continue;
+            }
+            System.out.printf("%-45s %18s %18s %18s %18s%n", after.endpoint(),
+                    delta(base.p50Ms(), after.p50Ms()),
+                    delta(base.p99Ms(), after.p99Ms()),
+                    delta(base.p999Ms(), after.p999Ms()),
+                    delta(base.throughputPerSecond(), after.throughputPerSecond()));
+
+            if (percentChange(base.p99Ms(), after.p99Ms()) > maxRegressionPercent) {
+                regressions.add(after.endpoint());
+            }
+        }
+        return regressions;
+    }
+
+    private static String delta(double before, double after) {
+        return String.format("%.1f (%+.0f%%)", after, percentChange(before, after));
+    }
+
+    private static double percentChange(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100.0;
+    }
+}
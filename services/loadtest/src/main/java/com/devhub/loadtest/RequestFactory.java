@@ -0,0 +1,123 @@
+package com.devhub.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Builds concrete HTTP requests for an endpoint against the seeded dataset.
+ */
+public class RequestFactory {
+
+    private static final String BOUNDARY = "devhub-loadtest-boundary";
+
+    private static final int MULTI_GET_SIZE = 20;
+
+    private final String baseUrl;
+    private final Duration timeout;
+    private final Dataset dataset;
+    private final int uploadFileBytes;
+    private final ObjectMapper mapper;
+
+    public RequestFactory(LoadTestConfig config, Dataset dataset, ObjectMapper mapper) {
+        this.baseUrl = config.baseUrl();
+        this.timeout = Duration.ofMillis(config.requestTimeoutMs());
+        this.dataset = dataset;
+        this.uploadFileBytes = config.uploadFileBytes();
+        this.mapper = mapper;
+    }
+
+    public HttpRequest build(Endpoint endpoint, SplittableRandom random) {
+        switch (endpoint) {
+            case LIST_SNIPPETS:
+            case LIST_PUBLIC_SNIPPETS:
+            case LIST_PORTFOLIO:
+                return get(endpoint.route());
+            case SNIPPETS_BY_LANGUAGE:
+                return get("/api/snippets/language/" + Dataset.pick(random, Dataset.LANGUAGES));
+            case SNIPPETS_BY_TAG:
+                return get("/api/snippets/tag/" + Dataset.pick(random, Dataset.TAGS));
+            case GET_SNIPPET:
+                return get("/api/snippets/" + dataset.randomSnippetId(random));
+            case MULTI_GET_SNIPPETS:
+                return get("/api/snippets?ids=" + String.join(",", dataset.randomSnippetIds(random, MULTI_GET_SIZE)));
+            case PORTFOLIO_BY_CATEGORY:
+                return get("/api/portfolio/category/" + Dataset.pick(random, Dataset.LINK_CATEGORIES));
+            case GET_PORTFOLIO_LINK:
+                return get("/api/portfolio/" + dataset.randomLinkId(random));
+            case CREATE_SNIPPET:
+                return json("POST", "/api/snippets", dataset.newSnippet(random));
+            case UPDATE_SNIPPET:
+                return json("PUT", "/api/snippets/" + dataset.randomSnippetId(random), dataset.newSnippet(random));
+            case PATCH_SNIPPET:
+                return json("PATCH", "/api/snippets/" + dataset.randomSnippetId(random),
+                        Map.of("isPublic", random.nextBoolean()));
+            case CREATE_PORTFOLIO_LINK:
+                return json("POST", "/api/portfolio", dataset.newLink(random, random.nextInt(1000)));
+            case UPDATE_PORTFOLIO_LINK:
+                return json("PUT", "/api/portfolio/" + dataset.randomLinkId(random),
+                        dataset.newLink(random, random.nextInt(1000)));
+            case UPLOAD_SNIPPET:
+                return upload(random);
+            default:
+                throw new IllegalArgumentException("Unsupported endpoint: " + endpoint);
+        }
+    }
+
+    public HttpRequest json(String method, String path, Map<String, Object> body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize request body", e);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest upload(SplittableRandom random) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(uploadFileBytes + 1024);
+        String language = Dataset.pick(random, Dataset.LANGUAGES);
+        field(body, "title", "Load test upload " + random.nextInt(1_000_000));
+        field(body, "language", language);
+        field(body, "category", Dataset.pick(random, Dataset.SNIPPET_CATEGORIES));
+        field(body, "tags", Dataset.pick(random, Dataset.TAGS));
+        field(body, "isPublic", String.valueOf(random.nextBoolean()));
+        write(body, "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"loadtest." + language + "\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n");
+        write(body, Dataset.code(random, uploadFileBytes));
+        write(body, "\r\n--" + BOUNDARY + "--\r\n");
+
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/snippets/upload"))
+                .timeout(timeout)
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private static void field(ByteArrayOutputStream body, String name, String value) {
+        write(body, "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n");
+    }
+
+    private static void write(ByteArrayOutputStream body, String text) {
+        body.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
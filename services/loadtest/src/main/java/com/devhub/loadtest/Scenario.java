@@ -0,0 +1,54 @@
+package com.devhub.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Traffic scenarios. Each scenario runs at its own fixed arrival rate and picks
+ * an endpoint per request from a weighted mix.
+ */
+public enum Scenario {
+
+    READ("read", new Endpoint[] {
+            Endpoint.LIST_SNIPPETS, Endpoint.LIST_PUBLIC_SNIPPETS, Endpoint.SNIPPETS_BY_LANGUAGE,
+            Endpoint.SNIPPETS_BY_TAG, Endpoint.GET_SNIPPET, Endpoint.MULTI_GET_SNIPPETS,
+            Endpoint.LIST_PORTFOLIO, Endpoint.PORTFOLIO_BY_CATEGORY, Endpoint.GET_PORTFOLIO_LINK
+    }, new int[] {10, 15, 10, 5, 25, 5, 15, 5, 10}),
+
+    WRITE("write", new Endpoint[] {
+            Endpoint.CREATE_SNIPPET, Endpoint.UPDATE_SNIPPET, Endpoint.PATCH_SNIPPET,
+            Endpoint.CREATE_PORTFOLIO_LINK, Endpoint.UPDATE_PORTFOLIO_LINK
+    }, new int[] {30, 25, 25, 10, 10}),
+
+    UPLOAD("upload", new Endpoint[] {
+            Endpoint.UPLOAD_SNIPPET
+    }, new int[] {100});
+
+    private final String key;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+
+    Scenario(String key, Endpoint[] endpoints, int[] weights) {
+        this.key = key;
+        this.endpoints = endpoints;
+        this.cumulativeWeights = new int[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public Endpoint pick(SplittableRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+}
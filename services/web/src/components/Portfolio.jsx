@@ -64,6 +64,22 @@ function Portfolio() {
     }
   };
 
+  // Moving only sends the new neighbors; the server writes just this link
+  const handleMove = async (index, offset) => {
+    const target = index + offset;
+    const rest = links.filter((_, i) => i !== index);
+    try {
+      await axios.post(`${API_URL}/portfolio/${links[index].id}/move`, {
+        afterId: target > 0 ? rest[target - 1].id : null,
+        beforeId: target < rest.length ? rest[target].id : null
+      });
+      fetchLinks();
+    } catch (err) {
+      setError('Failed to move link: ' + err.message);
+      fetchLinks();
+    }
+  };
+
   if (loading) {
     return <div className="loading">Loading portfolio...</div>;
   }
@@ -138,7 +154,7 @@ function Portfolio() {
             <p>No portfolio links yet. Click "Add New Link" to get started!</p>
           </div>
         ) : (
-          links.map((link) => (
+          links.map((link, index) => (
             <div key={link.id} className="card">
               <div style={{ display: 'flex', justifyContent: 'space-between', alignItems: 'start' }}>
                 <div style={{ flex: 1 }}>
@@ -150,8 +166,24 @@ function Portfolio() {
                     </a>
                   </p>
                   {link.description && <p style={{ marginTop: '0.5rem', color: '#5f6368' }}>{link.description}</p>}
-                  <p style={{ fontSize: '0.85rem', color: '#999', marginTop: '0.5rem' }}>Order: {link.order}</p>
+                  <p style={{ fontSize: '0.85rem', color: '#999', marginTop: '0.5rem' }}>Position: {index + 1}</p>
                 </div>
+                <button
+                  className="button"
+                  onClick={() => handleMove(index, -1)}
+                  disabled={index === 0}
+                  style={{ marginLeft: '1rem' }}
+                >
+                  Up
+                </button>
+                <button
+                  className="button"
+                  onClick={() => handleMove(index, 1)}
+                  disabled={index === links.length - 1}
+                  style={{ marginLeft: '0.5rem' }}
+                >
+                  Down
+                </button>
                 <button
                   className="button button-danger"
                   onClick={() => handleDelete(link.id)}
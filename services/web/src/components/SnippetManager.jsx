@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import axios from 'axios';
 
 const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080/api';
@@ -19,11 +19,64 @@ function SnippetManager() {
     description: ''
   });
 
+  const feedConnected = useRef(false);
+  // Feed updates received while a fetch is in flight, re-applied to its result
+  const pendingUpdates = useRef(null);
+
+  const applyUpdate = (update) => {
+    if (pendingUpdates.current) {
+      pendingUpdates.current.push(update);
+    }
+    setSnippets(update);
+  };
+
+  // Apply changes pushed by the API instead of refetching the whole list.
+  // The feed is opened before the list is fetched, so no change can fall in
+  // between. EventSource reconnects on its own and resumes via Last-Event-ID;
+  // an (re)open with no event received yet has nothing to resume from, so it refetches.
   useEffect(() => {
-    fetchSnippets();
+    const source = new EventSource(`${API_URL}/snippets/changes`);
+    const matchesFilter = (snippet) => filter !== 'public' || snippet.isPublic;
+    const byCreatedDesc = (a, b) => (b.createdAt?.seconds || 0) - (a.createdAt?.seconds || 0);
+    let lastEventId = null;
+
+    const upsert = (event) => {
+      lastEventId = event.lastEventId;
+      const { id, document } = JSON.parse(event.data);
+      applyUpdate((current) => {
+        const others = current.filter((s) => s.id !== id);
+        return matchesFilter(document) ? [...others, document].sort(byCreatedDesc) : others;
+      });
+    };
+
+    source.onopen = () => {
+      feedConnected.current = true;
+      if (!lastEventId) {
+        fetchSnippets();
+      }
+    };
+    source.onerror = () => { feedConnected.current = false; };
+    source.addEventListener('added', upsert);
+    source.addEventListener('modified', upsert);
+    source.addEventListener('removed', (event) => {
+      lastEventId = event.lastEventId;
+      const { id } = JSON.parse(event.data);
+      applyUpdate((current) => current.filter((s) => s.id !== id));
+    });
+    source.addEventListener('reset', (event) => {
+      lastEventId = event.lastEventId;
+      fetchSnippets();
+    });
+
+    return () => {
+      feedConnected.current = false;
+      source.close();
+    };
   }, [filter]);
 
   const fetchSnippets = async () => {
+    const updates = [];
+    pendingUpdates.current = updates;
     try {
       setLoading(true);
       let url = `${API_URL}/snippets`;
@@ -31,11 +84,14 @@ function SnippetManager() {
         url = `${API_URL}/snippets/public`;
       }
       const response = await axios.get(url);
-      setSnippets(response.data);
+      setSnippets(updates.reduce((list, update) => update(list), response.data));
       setError(null);
     } catch (err) {
       setError('Failed to fetch snippets: ' + err.message);
     } finally {
+      if (pendingUpdates.current === updates) {
+        pendingUpdates.current = null;
+      }
       setLoading(false);
     }
   };
@@ -58,7 +114,9 @@ function SnippetManager() {
         description: ''
       });
       setShowForm(false);
-      fetchSnippets();
+      if (!feedConnected.current) {
+        fetchSnippets();
+      }
     } catch (err) {
       setError('Failed to create snippet: ' + err.message);
     }
@@ -68,7 +126,9 @@ function SnippetManager() {
     if (window.confirm('Are you sure you want to delete this snippet?')) {
       try {
         await axios.delete(`${API_URL}/snippets/${id}`);
-        fetchSnippets();
+        if (!feedConnected.current) {
+          fetchSnippets();
+        }
       } catch (err) {
         setError('Failed to delete snippet: ' + err.message);
       }
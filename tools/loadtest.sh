@@ -0,0 +1,90 @@
+#!/bin/bash
+
+# Developer Hub Platform - Load Test
+# Starts the Firestore emulator and a local GCS stand-in (fake-gcs-server),
+# runs the API against them with the "emulator" profile, seeds a dataset and
+# drives fixed-rate load. Results are written as JSON for diffing between runs.
+#
+# Usage: ./tools/loadtest.sh [--key=value ...]
+#   e.g. ./tools/loadtest.sh --duration-seconds=120 --scenario.read.rate=200
+#        ./tools/loadtest.sh --compare-with=loadtest-results-baseline.json
+#
+# Requires: gcloud (with the Firestore emulator component), docker, Java 17, Maven
+
+set -e
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+BLUE='\033[0;34m'
+NC='\033[0m' # No Color
+
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+PROJECT_ROOT="$(cd "$SCRIPT_DIR/.." && pwd)"
+
+FIRESTORE_PORT="${FIRESTORE_PORT:-8081}"
+GCS_PORT="${GCS_PORT:-4443}"
+API_PORT="${API_PORT:-8080}"
+BUCKET="${GCS_BUCKET:-devhub-loadtest}"
+PROJECT_ID="${GCP_PROJECT_ID:-devhub-loadtest}"
+GCS_CONTAINER="devhub-loadtest-gcs"
+WORK_DIR="$(mktemp -d)"
+
+FIRESTORE_PID=""
+API_PID=""
+
+cleanup() {
+    echo -e "\n${BLUE}Stopping emulators and API...${NC}"
+    [ -n "$API_PID" ] && kill "$API_PID" 2>/dev/null || true
+    [ -n "$FIRESTORE_PID" ] && kill "$FIRESTORE_PID" 2>/dev/null || true
+    docker rm -f "$GCS_CONTAINER" > /dev/null 2>&1 || true
+    rm -rf "$WORK_DIR"
+}
+trap cleanup EXIT
+
+wait_for() {
+    local url=$1
+    local name=$2
+    for _ in $(seq 1 60); do
+        if curl -s -o /dev/null "$url"; then
+            echo -e "${GREEN}✓ $name is up${NC}"
+            return 0
+        fi
+        sleep 1
+    done
+    echo -e "${RED}✗ $name did not start (see $WORK_DIR)${NC}"
+    exit 1
+}
+
+echo -e "${BLUE}[Building]${NC}"
+(cd "$PROJECT_ROOT/services/api" && mvn -B -q clean package -DskipTests)
+(cd "$PROJECT_ROOT/services/loadtest" && mvn -B -q clean package)
+
+echo -e "${BLUE}[Starting Firestore emulator on :$FIRESTORE_PORT]${NC}"
+gcloud beta emulators firestore start --host-port="localhost:$FIRESTORE_PORT" \
+    > "$WORK_DIR/firestore.log" 2>&1 &
+FIRESTORE_PID=$!
+wait_for "http://localhost:$FIRESTORE_PORT" "Firestore emulator"
+
+echo -e "${BLUE}[Starting fake-gcs-server on :$GCS_PORT]${NC}"
+docker run -d --rm --name "$GCS_CONTAINER" -p "$GCS_PORT:4443" \
+    fsouza/fake-gcs-server -scheme http -port 4443 > /dev/null
+wait_for "http://localhost:$GCS_PORT/storage/v1/b" "GCS stand-in"
+curl -s -X POST -H "Content-Type: application/json" \
+    -d "{\"name\": \"$BUCKET\"}" \
+    "http://localhost:$GCS_PORT/storage/v1/b?project=$PROJECT_ID" > /dev/null
+
+echo -e "${BLUE}[Starting API on :$API_PORT]${NC}"
+GCP_PROJECT_ID="$PROJECT_ID" \
+GCS_BUCKET="$BUCKET" \
+FIRESTORE_EMULATOR_HOST="localhost:$FIRESTORE_PORT" \
+STORAGE_EMULATOR_HOST="http://localhost:$GCS_PORT" \
+    java -jar "$PROJECT_ROOT/services/api/target/devhub-api.jar" \
+    --spring.profiles.active=emulator --server.port="$API_PORT" \
+    > "$WORK_DIR/api.log" 2>&1 &
+API_PID=$!
+wait_for "http://localhost:$API_PORT/actuator/health" "API"
+
+echo -e "${BLUE}[Running load test]${NC}"
+java -jar "$PROJECT_ROOT/services/loadtest/target/devhub-loadtest.jar" \
+    --base-url="http://localhost:$API_PORT" "$@"
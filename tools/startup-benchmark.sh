@@ -0,0 +1,102 @@
+#!/bin/bash
+
+# Developer Hub Platform - Startup Benchmark
+# Builds the API image and compares time-to-healthy for:
+#   baseline   - plain classpath, no AOT, no AppCDS, eager bean initialization
+#   fast-start - image entrypoint (AOT + AppCDS) with the fast-start profile
+#
+# Both modes run with the "emulator" profile so no GCP credentials are needed;
+# nothing connects to GCP during startup in either mode.
+#
+# Usage: ./tools/startup-benchmark.sh [runs]   (default: 5)
+# Results: startup-benchmark.json in the current directory
+
+set -e
+
+# Colors for output
+GREEN='\033[0;32m'
+BLUE='\033[0;34m'
+NC='\033[0m' # No Color
+
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+PROJECT_ROOT="$(cd "$SCRIPT_DIR/.." && pwd)"
+
+RUNS="${1:-5}"
+IMAGE="devhub-api:startup-bench"
+PORT="${BENCH_PORT:-18080}"
+CONTAINER="devhub-startup-bench"
+OUTPUT="startup-benchmark.json"
+
+now_ms() {
+    date +%s%3N
+}
+
+# Start one container, poll /actuator/health until it returns 200 and print
+# "<wall ms> <jvm-reported seconds>"
+measure() {
+    local profiles=$1
+    shift
+
+    docker rm -f "$CONTAINER" > /dev/null 2>&1 || true
+    local start
+    start=$(now_ms)
+    docker run -d --name "$CONTAINER" -p "$PORT:8080" \
+        -e SPRING_PROFILES_ACTIVE="$profiles" \
+        -e FIRESTORE_EMULATOR_HOST=localhost:8081 \
+        -e STORAGE_EMULATOR_HOST=http://localhost:4443 \
+        "$@" > /dev/null
+
+    until curl -sf -o /dev/null "http://localhost:$PORT/actuator/health"; do
+        sleep 0.05
+    done
+    local end
+    end=$(now_ms)
+
+    local started
+    started=$(docker logs "$CONTAINER" 2>&1 | sed -n 's/.*Started DevHubApplication in \([0-9.]*\) seconds.*/\1/p' | head -1)
+    docker rm -f "$CONTAINER" > /dev/null 2>&1
+    echo "$((end - start)) ${started:-0}"
+}
+
+run_mode() {
+    local mode=$1
+    shift
+    local walls=()
+    local jvms=()
+
+    echo -e "${BLUE}[$mode]${NC}" >&2
+    for i in $(seq 1 "$RUNS"); do
+        read -r wall jvm < <(measure "$@")
+        echo "  run $i: ${wall} ms to healthy (Spring reported ${jvm}s)" >&2
+        walls+=("$wall")
+        jvms+=("$jvm")
+    done
+
+    local median
+    median=$(printf '%s\n' "${walls[@]}" | sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}')
+    echo "    \"$mode\": {\"runs\": $RUNS, \"medianMsToHealthy\": $median," \
+         "\"msToHealthy\": [$(IFS=,; echo "${walls[*]}")]," \
+         "\"springStartedSeconds\": [$(IFS=,; echo "${jvms[*]}")]}"
+}
+
+echo -e "${BLUE}Building image $IMAGE...${NC}"
+# AOT output is only used under the profiles it was generated for
+docker build -q -t "$IMAGE" --build-arg AOT_PROFILES=emulator,fast-start "$PROJECT_ROOT/services/api" > /dev/null
+
+BASELINE=$(run_mode baseline emulator \
+    --entrypoint java "$IMAGE" -XX:+UseContainerSupport -XX:MaxRAMPercentage=75.0 -Xshare:off \
+    -cp "app.jar:lib/*" com.devhub.DevHubApplication)
+FAST_START=$(run_mode fast-start emulator,fast-start "$IMAGE")
+
+{
+    echo "{"
+    echo "  \"image\": \"$IMAGE\","
+    echo "  \"modes\": {"
+    echo "$BASELINE,"
+    echo "$FAST_START"
+    echo "  }"
+    echo "}"
+} > "$OUTPUT"
+
+echo -e "\n${GREEN}Results written to $OUTPUT${NC}"
+cat "$OUTPUT"